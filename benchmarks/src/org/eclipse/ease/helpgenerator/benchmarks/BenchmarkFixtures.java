@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.DocumentationTool;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.eclipse.ease.helpgenerator.ExportedMembers;
+import org.eclipse.ease.helpgenerator.InheritedDocumentation;
+import org.eclipse.ease.helpgenerator.LinkProvider;
+import org.eclipse.ease.helpgenerator.ModuleDoclet;
+
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.JavacTask;
+
+/**
+ * Synthetic inputs for the help generator benchmarks.
+ */
+public final class BenchmarkFixtures {
+
+	/** A module class compiled (entered and attributed) by javac. */
+	public static class CompiledModule {
+		private final TypeElement fElement;
+		private final DocTrees fDocTrees;
+		private final Elements fElements;
+		private final Types fTypes;
+
+		CompiledModule(final TypeElement element, final DocTrees docTrees, final Elements elements, final Types types) {
+			fElement = element;
+			fDocTrees = docTrees;
+			fElements = elements;
+			fTypes = types;
+		}
+
+		public TypeElement getElement() {
+			return fElement;
+		}
+
+		public DocTrees getDocTrees() {
+			return fDocTrees;
+		}
+
+		/**
+		 * Create a new inherited documentation lookup. A fresh instance per invocation keeps cached lookups from leaking between benchmark iterations.
+		 */
+		public InheritedDocumentation createDocumentation() {
+			return new InheritedDocumentation(fDocTrees, fElements, fTypes);
+		}
+
+		/**
+		 * Create a new exported member lookup, not sharing cached member lists with previous invocations.
+		 */
+		public ExportedMembers createExportedMembers() {
+			return new ExportedMembers(fElements, fTypes);
+		}
+	}
+
+	private static final String[] ECLIPSE_ROOTS = { "org.eclipse.core", "org.eclipse.ui", "org.eclipse.jface", "org.eclipse.swt", "org.eclipse.debug",
+			"org.eclipse.jdt", "org.eclipse.ease", "org.eclipse.help", "org.eclipse.team", "org.eclipse.emf" };
+
+	private static final String[] PACKAGE_SEGMENTS = { "internal", "runtime", "resources", "model", "commands", "handlers", "views", "editors", "util",
+			"preferences", "dialogs", "wizards" };
+
+	private BenchmarkFixtures() {
+		// utility class
+	}
+
+	/**
+	 * Create a link provider with the JDK package list and a set of synthetic Eclipse API sites, similar to a help build linking against the target platform.
+	 *
+	 * @param packageList
+	 *            location of a JDK package-list file
+	 * @param sites
+	 *            amount of additional synthetic sites to register
+	 * @return link provider
+	 */
+	public static LinkProvider createLinkProvider(final String packageList, final int sites) throws IOException {
+		final LinkProvider linkProvider = new LinkProvider();
+		linkProvider.registerAddress("https://docs.oracle.com/en/java/javase/11/docs/api/", readPackages(packageList));
+
+		for (int site = 0; site < sites; site++)
+			linkProvider.registerAddress("https://help.eclipse.org/site" + site + "/api/", createPackages(site, 200));
+
+		return linkProvider;
+	}
+
+	private static Collection<String> readPackages(final String location) throws IOException {
+		final Collection<String> packages = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(location), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null)
+				packages.add(line);
+		}
+
+		return packages;
+	}
+
+	private static Collection<String> createPackages(final int site, final int count) {
+		final Collection<String> packages = new ArrayList<>();
+		for (int index = 0; index < count; index++) {
+			final String root = ECLIPSE_ROOTS[(site + index) % ECLIPSE_ROOTS.length];
+			packages.add(root + ".site" + site + "." + PACKAGE_SEGMENTS[index % PACKAGE_SEGMENTS.length] + (index / PACKAGE_SEGMENTS.length));
+		}
+
+		return packages;
+	}
+
+	/**
+	 * Create a method comment that contains typical link tokens.
+	 *
+	 * @return comment text
+	 */
+	public static String createComment() {
+		return "Opens the given {@link java.io.File} and reads its content using {@link java.nio.charset.Charset#forName(String)}. Use "
+				+ "{@module org.eclipse.ease.modules.platform.resources} to locate workspace files or {@module #writeFile()} to store data. "
+				+ "Returns a {@link java.util.List} of lines or <code>null</code> when the file does not exist. See also "
+				+ "{@link org.eclipse.core.resources.IFile} and {@link #readLine(int, String)}.";
+	}
+
+	/**
+	 * Create a plugin.xml file registering <i>modules</i> scripting modules.
+	 *
+	 * @param modules
+	 *            amount of modules
+	 * @return plugin.xml content
+	 */
+	public static String createPluginXML(final int modules) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<?eclipse version=\"3.4\"?>\n<plugin>\n");
+		builder.append("   <extension point=\"org.eclipse.ease.modules\">\n");
+		for (int category = 0; category < (modules / 10) + 1; category++)
+			builder.append("      <category id=\"org.eclipse.bench.category.c").append(category).append("\" name=\"Category ").append(category)
+					.append("\"/>\n");
+
+		for (int module = 0; module < modules; module++) {
+			builder.append("      <module category=\"org.eclipse.bench.category.c").append(module / 10).append("\" class=\"org.eclipse.bench.Module")
+					.append(module).append("\" id=\"org.eclipse.bench.module").append(module).append("\" name=\"Module ").append(module)
+					.append("\" visible=\"true\">\n");
+			if (module > 0)
+				builder.append("         <dependency module=\"org.eclipse.bench.module").append(module - 1).append("\"/>\n");
+			builder.append("      </module>\n");
+		}
+		builder.append("   </extension>\n");
+
+		for (int toc = 0; toc < (modules / 10) + 1; toc++)
+			builder.append("   <extension point=\"org.eclipse.help.toc\">\n      <toc file=\"help/modules_c").append(toc)
+					.append(".xml\" primary=\"false\"/>\n   </extension>\n");
+
+		builder.append("</plugin>\n");
+		return builder.toString();
+	}
+
+	/**
+	 * Create java source code for a scripting module.
+	 *
+	 * @param packageName
+	 *            package of the module class
+	 * @param className
+	 *            simple class name
+	 * @param methods
+	 *            amount of exported methods
+	 * @param fields
+	 *            amount of exported constants
+	 * @return java source code
+	 */
+	public static String createModuleSource(final String packageName, final String className, final int methods, final int fields) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("package ").append(packageName).append(";\n\n");
+		builder.append("import org.eclipse.ease.modules.ScriptParameter;\n");
+		builder.append("import org.eclipse.ease.modules.WrapToScript;\n\n");
+		builder.append("/**\n * Synthetic module used for benchmarking. Provides {@link java.io.File} access and refers to\n");
+		builder.append(" * {@module org.eclipse.ease.modules.platform.resources}.\n */\n");
+		builder.append("public class ").append(className).append(" {\n\n");
+
+		for (int field = 0; field < fields; field++) {
+			builder.append("\t/** Constant number ").append(field).append(" used by {@link #method0(String, int)}. */\n");
+			builder.append("\t@WrapToScript\n\tpublic static final String CONSTANT_").append(field).append(" = \"value").append(field).append("\";\n\n");
+		}
+
+		for (int method = 0; method < methods; method++) {
+			builder.append("\t/**\n\t * Performs operation ").append(method).append(". ").append(createComment()).append("\n\t *\n");
+			builder.append("\t * @param name\n\t *            name of the {@link java.io.File} to process\n");
+			builder.append("\t * @param count\n\t *            amount of iterations\n");
+			builder.append("\t * @return processed content\n\t */\n");
+			builder.append("\t@WrapToScript").append(((method % 3) == 0) ? "(alias = \"op" + method + ";operation" + method + "\")" : "").append("\n");
+			builder.append("\tpublic String method").append(method).append("(final String name, @ScriptParameter(defaultValue = \"").append(method)
+					.append("\") final int count) {\n\t\treturn name;\n\t}\n\n");
+		}
+
+		builder.append("\tpublic void notExported() {\n\t}\n}\n");
+		return builder.toString();
+	}
+
+	/**
+	 * Compile a synthetic module class with javac and return its type element together with the doc trees of the compilation task.
+	 *
+	 * @param methods
+	 *            amount of exported methods
+	 * @param fields
+	 *            amount of exported constants
+	 * @return compiled module
+	 */
+	public static CompiledModule compileModule(final int methods, final int fields) throws IOException {
+		final String packageName = "org.eclipse.bench";
+		final String className = "SyntheticModule";
+		final String source = createModuleSource(packageName, className, methods, fields);
+
+		final JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + packageName.replace('.', '/') + "/" + className + ".java"),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final List<String> options = List.of("-proc:none", "-classpath", System.getProperty("java.class.path"));
+		final JavacTask task = (JavacTask) compiler.getTask(null, null, null, options, null, List.of(sourceFile));
+		task.analyze();
+
+		final TypeElement element = task.getElements().getTypeElement(packageName + "." + className);
+		if (element == null)
+			throw new IOException("Could not compile synthetic module");
+
+		return new CompiledModule(element, DocTrees.instance(task), task.getElements(), task.getTypes());
+	}
+
+	/**
+	 * Run {@link ModuleDoclet} through the {@link DocumentationTool} API on a project created by {@link CorpusGenerator}. Documentation and HTML errors do
+	 * not fail the run unless enabled by <i>arguments</i>.
+	 *
+	 * @param project
+	 *            corpus project folder
+	 * @param arguments
+	 *            additional doclet options
+	 * @return console output of the doclet
+	 * @throws IOException
+	 *             when help generation fails
+	 */
+	public static String runDoclet(final File project, final List<String> arguments) throws IOException {
+		final List<String> options = new ArrayList<>();
+		options.add("-quiet");
+		options.add("-sourcepath");
+		options.add(new File(project, "src").getPath());
+		options.add("-classpath");
+		options.add(System.getProperty("java.class.path"));
+		options.add("-root");
+		options.add(project.getPath());
+		options.add("-failOnHTMLError");
+		options.add("false");
+		options.add("-failOnMissingDocs");
+		options.add("false");
+		options.addAll(arguments);
+		options.add("-subpackages");
+		options.add(CorpusGenerator.PACKAGE_NAME);
+
+		final DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+		final ByteArrayOutputStream console = new ByteArrayOutputStream();
+		final PrintStream out = System.out;
+		try (PrintStream capture = new PrintStream(console, true, StandardCharsets.UTF_8)) {
+			System.setOut(capture);
+			final Boolean success = tool.getTask(null, null, null, ModuleDoclet.class, options, null).call();
+			if (!Boolean.TRUE.equals(success))
+				throw new IOException("Help generation failed for " + project);
+
+		} finally {
+			System.setOut(out);
+		}
+
+		return console.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Delete a file or folder recursively.
+	 *
+	 * @param path
+	 *            file or folder to delete, may not exist
+	 */
+	public static void delete(final Path path) throws IOException {
+		if (Files.exists(path)) {
+			try (Stream<Path> files = Files.walk(path)) {
+				for (final Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+					Files.delete(file);
+			}
+		}
+	}
+}
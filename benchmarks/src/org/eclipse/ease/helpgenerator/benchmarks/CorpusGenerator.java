@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Generates a synthetic EASE module plugin: java sources for scripting modules, plugin.xml, MANIFEST.MF and build.properties. Modules use
+ * {@link org.eclipse.ease.modules.WrapToScript} with aliases, {@link org.eclipse.ease.modules.ScriptParameter} defaults, <code>{&#64;link}</code> and
+ * <code>{&#64;module}</code> cross references, shared base classes, categories and module dependencies.
+ * <p>
+ * Usage: <code>CorpusGenerator &lt;target folder&gt; &lt;modules&gt; [methods per module] [modules per category]</code>
+ * </p>
+ */
+public class CorpusGenerator {
+
+	public static final String PLUGIN_ID = "org.eclipse.ease.bench";
+	public static final String PACKAGE_NAME = PLUGIN_ID + ".modules";
+
+	/** Amount of modules sharing one base class. */
+	private static final int MODULES_PER_BASE = 25;
+
+	private final File fTarget;
+	private final int fModules;
+	private final int fMethods;
+	private final int fModulesPerCategory;
+
+	private int fFiles = 0;
+
+	public CorpusGenerator(final File target, final int modules, final int methods, final int modulesPerCategory) {
+		fTarget = target;
+		fModules = modules;
+		fMethods = methods;
+		fModulesPerCategory = Math.max(1, modulesPerCategory);
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: CorpusGenerator <target folder> <modules> [methods per module] [modules per category]");
+			return;
+		}
+
+		final int methods = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+		final int modulesPerCategory = (args.length > 3) ? Integer.parseInt(args[3]) : 20;
+		final CorpusGenerator generator = new CorpusGenerator(new File(args[0]), Integer.parseInt(args[1]), methods, modulesPerCategory);
+		generator.generate();
+
+		System.out.println("Generated " + generator.getFileCount() + " files in " + args[0]);
+	}
+
+	/**
+	 * Create the corpus project.
+	 */
+	public void generate() throws IOException {
+		final File sourceFolder = new File(fTarget, "src" + File.separator + PACKAGE_NAME.replace('.', File.separatorChar));
+
+		for (int base = 0; base < getBaseClassCount(); base++)
+			write(new File(sourceFolder, getBaseClassName(base) + ".java"), createBaseClass(base));
+
+		for (int module = 0; module < fModules; module++)
+			write(new File(sourceFolder, getModuleClassName(module) + ".java"), createModuleClass(module));
+
+		write(new File(fTarget, "plugin.xml"), createPluginXML());
+		write(new File(fTarget, "META-INF" + File.separator + "MANIFEST.MF"), createManifest());
+		write(new File(fTarget, "build.properties"), "source.. = src/\noutput.. = bin/\nbin.includes = META-INF/,\\\n               .,\\\n               plugin.xml\n");
+	}
+
+	public int getFileCount() {
+		return fFiles;
+	}
+
+	public File getSourceFolder() {
+		return new File(fTarget, "src");
+	}
+
+	private int getBaseClassCount() {
+		return (fModules + MODULES_PER_BASE - 1) / MODULES_PER_BASE;
+	}
+
+	private static String getBaseClassName(final int base) {
+		return "AbstractBench" + base + "Module";
+	}
+
+	private static String getModuleClassName(final int module) {
+		return "Bench" + module + "Module";
+	}
+
+	private static String getModuleId(final int module) {
+		return PLUGIN_ID + ".module" + module;
+	}
+
+	private int getCategoryCount() {
+		return (fModules + fModulesPerCategory - 1) / fModulesPerCategory;
+	}
+
+	private static String getCategoryId(final int category) {
+		return PLUGIN_ID + ".category.group" + category;
+	}
+
+	private String createBaseClass(final int base) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("package ").append(PACKAGE_NAME).append(";\n\n");
+		builder.append("import org.eclipse.ease.modules.WrapToScript;\n\n");
+		builder.append("/**\n * Shared base for benchmark modules. Provides common {@link java.lang.Object} helpers.\n */\n");
+		builder.append("public abstract class ").append(getBaseClassName(base)).append(" {\n\n");
+		builder.append("\t/** Version of the module API. */\n\t@WrapToScript\n\tpublic static final String API_VERSION = \"1.").append(base).append("\";\n\n");
+		builder.append("\t/**\n\t * Reset the module state. Subclasses may override.\n\t */\n\t@WrapToScript\n\tpublic void reset() {\n\t}\n\n");
+		builder.append("\t/**\n\t * Get a textual status of the module.\n\t *\n\t * @return status text\n\t */\n");
+		builder.append("\t@WrapToScript\n\tpublic String getStatus() {\n\t\treturn \"ok\";\n\t}\n}\n");
+		return builder.toString();
+	}
+
+	private String createModuleClass(final int module) {
+		final String className = getModuleClassName(module);
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("package ").append(PACKAGE_NAME).append(";\n\n");
+		builder.append("import java.io.File;\nimport java.util.List;\n\n");
+		builder.append("import org.eclipse.ease.modules.ScriptParameter;\nimport org.eclipse.ease.modules.WrapToScript;\n\n");
+		builder.append("/**\n * Benchmark module number ").append(module).append(". Works on {@link java.io.File} resources");
+		if (module > 0)
+			builder.append(" and cooperates with {@module ").append(getModuleId(module - 1)).append("}");
+		builder.append(".\n */\n");
+		builder.append("public class ").append(className).append(" extends ").append(getBaseClassName(module / MODULES_PER_BASE)).append(" {\n\n");
+
+		builder.append("\t/** Default timeout used by {@link #method0(String, int)}. */\n");
+		builder.append("\t@WrapToScript\n\tpublic static final int DEFAULT_TIMEOUT = ").append(module).append(";\n\n");
+
+		builder.append("\t/** Internal constant, not exported. */\n\tpublic static final int INTERNAL = 0;\n\n");
+
+		builder.append("\t/**\n\t * Reset all data of module ").append(module).append(".\n\t */\n");
+		builder.append("\t@Override\n\t@WrapToScript\n\tpublic void reset() {\n\t}\n\n");
+
+		for (int method = 0; method < fMethods; method++) {
+			builder.append("\t/**\n\t * Executes step ").append(method).append(" on the given {@link java.io.File}. Results are cached until {@link #reset()}");
+			if (module > 0)
+				builder.append(" or until {@module ").append(getModuleId(module - 1)).append("#method").append(method).append("()} is called");
+			builder.append(".\n\t * Use <code>&lt;name&gt;</code> placeholders for dynamic names.\n\t *\n");
+			builder.append("\t * @param name\n\t *            name of the resource to process\n");
+			builder.append("\t * @param count\n\t *            amount of iterations\n");
+			builder.append("\t * @param files\n\t *            additional files to process\n");
+			builder.append("\t * @return list of processed lines\n");
+			builder.append("\t * @throws IllegalArgumentException\n\t *             when <i>count</i> is negative\n\t */\n");
+
+			if ((method % 4) == 0)
+				builder.append("\t@WrapToScript(alias = \"step").append(module).append('_').append(method).append(";s").append(module).append('_').append(method)
+						.append("\")\n");
+			else
+				builder.append("\t@WrapToScript\n");
+
+			builder.append("\tpublic List<String> method").append(method).append("(final String name, @ScriptParameter(defaultValue = \"").append(method)
+					.append("\") final int count, @ScriptParameter(defaultValue = ScriptParameter.NULL) final File[] files) {\n");
+			builder.append("\t\tif (count < 0)\n\t\t\tthrow new IllegalArgumentException(name);\n\n\t\treturn null;\n\t}\n\n");
+		}
+
+		builder.append("\t/**\n\t * Not exported to scripts.\n\t */\n\tpublic void internalHelper() {\n\t}\n}\n");
+		return builder.toString();
+	}
+
+	private String createPluginXML() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<?eclipse version=\"3.4\"?>\n<plugin>\n");
+		builder.append("   <extension\n         point=\"org.eclipse.ease.modules\">\n");
+
+		for (int category = 0; category < getCategoryCount(); category++) {
+			builder.append("      <category\n            id=\"").append(getCategoryId(category)).append("\"\n            name=\"Group ").append(category)
+					.append("\"");
+			if (category > 0)
+				builder.append("\n            parent=\"").append(getCategoryId(0)).append("\"");
+			builder.append(">\n      </category>\n");
+		}
+
+		for (int module = 0; module < fModules; module++) {
+			builder.append("      <module\n            category=\"").append(getCategoryId(module / fModulesPerCategory)).append("\"\n");
+			builder.append("            class=\"").append(PACKAGE_NAME).append('.').append(getModuleClassName(module)).append("\"\n");
+			builder.append("            id=\"").append(getModuleId(module)).append("\"\n");
+			builder.append("            name=\"Bench ").append(module).append("\"\n            visible=\"true\">\n");
+			if (module > 0)
+				builder.append("         <dependency\n               module=\"").append(getModuleId(module - 1)).append("\">\n         </dependency>\n");
+			builder.append("      </module>\n");
+		}
+
+		builder.append("   </extension>\n</plugin>\n");
+		return builder.toString();
+	}
+
+	private static String createManifest() {
+		return "Manifest-Version: 1.0\nBundle-ManifestVersion: 2\nBundle-Name: Benchmark Modules\nBundle-SymbolicName: " + PLUGIN_ID
+				+ ";singleton:=true\nBundle-Version: 1.0.0.qualifier\nRequire-Bundle: org.eclipse.ease\n";
+	}
+
+	private void write(final File file, final String content) throws IOException {
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		fFiles++;
+	}
+}
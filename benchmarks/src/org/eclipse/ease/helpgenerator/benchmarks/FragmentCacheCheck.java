@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consistency check for the fragment cache. Generates a small corpus where one module links another module from a method comment only, then runs the doclet
+ * without cache, with a cold cache and with a warm cache. Help pages and the persisted dependency graph need to be identical for all runs.
+ * <p>
+ * Usage: <code>FragmentCacheCheck [work folder]</code>, exits with a non-zero code when outputs differ.
+ * </p>
+ */
+public class FragmentCacheCheck {
+
+	private static final String LINKING_MODULE = CorpusGenerator.PLUGIN_ID + ".module3";
+	private static final String LINKED_MODULE = CorpusGenerator.PLUGIN_ID + ".module0";
+
+	public static void main(final String[] args) throws Exception {
+		final Path work = (args.length > 0) ? new File(args[0]).toPath() : Files.createTempDirectory("fragmentCacheCheck");
+		final File project = work.resolve("project").toFile();
+		final File cache = work.resolve("cache").toFile();
+
+		BenchmarkFixtures.delete(work);
+		new CorpusGenerator(project, 5, 3, 20).generate();
+
+		// link a module that is neither a dependency nor referenced from the class comment
+		final Path source = new File(new File(project, "src"), CorpusGenerator.PACKAGE_NAME.replace('.', File.separatorChar) + File.separator + "Bench3Module.java")
+				.toPath();
+		final String content = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+		Files.write(source, content.replace("{@module " + CorpusGenerator.PLUGIN_ID + ".module2#method1()}", "{@module " + LINKED_MODULE + "#method1()}")
+				.getBytes(StandardCharsets.UTF_8));
+
+		final List<String> failures = new ArrayList<>();
+
+		final String uncached = runDoclet(project, work.resolve("uncached.graph").toFile());
+		final String uncachedPages = readPages(project);
+		if (!uncached.contains(" " + LINKING_MODULE + " " + LINKED_MODULE + " link"))
+			failures.add("method comment link " + LINKING_MODULE + " -> " + LINKED_MODULE + " missing in graph");
+
+		for (final String run : Arrays.asList("cold", "warm")) {
+			final String graph = runDoclet(project, work.resolve(run + ".graph").toFile(), "-fragmentCache", cache.getPath());
+			if (!uncached.equals(graph))
+				failures.add("graph of " + run + " cache run differs from uncached run");
+
+			if (!uncachedPages.equals(readPages(project)))
+				failures.add("pages of " + run + " cache run differ from uncached run");
+		}
+
+		if (failures.isEmpty()) {
+			System.out.println("Fragment cache check passed");
+			BenchmarkFixtures.delete(work);
+
+		} else {
+			for (final String failure : failures)
+				System.out.println("ERROR: " + failure);
+
+			System.out.println("Outputs kept in " + work);
+			System.exit(1);
+		}
+	}
+
+	private static String runDoclet(final File project, final File graph, final String... arguments) throws IOException {
+		final List<String> options = new ArrayList<>();
+		options.add("-graph");
+		options.add(graph.getPath());
+		options.addAll(Arrays.asList(arguments));
+		BenchmarkFixtures.runDoclet(project, options);
+
+		return new String(Files.readAllBytes(graph.toPath()), StandardCharsets.UTF_8);
+	}
+
+	private static String readPages(final File project) throws IOException {
+		final StringBuilder pages = new StringBuilder();
+		try (Stream<Path> files = Files.list(new File(project, "help").toPath())) {
+			for (final Path file : (Iterable<Path>) files.filter(path -> path.getFileName().toString().endsWith(".html")).sorted()::iterator)
+				pages.append(file.getFileName()).append('\n').append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+		}
+
+		return pages.toString();
+	}
+}
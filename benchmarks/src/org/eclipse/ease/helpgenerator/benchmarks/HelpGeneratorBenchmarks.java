@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ease.helpgenerator.HTMLWriter;
+import org.eclipse.ease.helpgenerator.IMemento;
+import org.eclipse.ease.helpgenerator.LinkProvider;
+import org.eclipse.ease.helpgenerator.ModuleDescriptor;
+import org.eclipse.ease.helpgenerator.StreamingMemento;
+import org.eclipse.ease.helpgenerator.Utf8Buffer;
+import org.eclipse.ease.helpgenerator.XMLMemento;
+import org.eclipse.ease.helpgenerator.benchmarks.BenchmarkFixtures.CompiledModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH microbenchmarks for the hot paths of the help generator: link resolution, text escaping, XML mementos, TOC writing and HTML page creation.
+ * <p>
+ * Build with <code>mvn -f benchmarks/pom.xml package</code> and run from the project root, adding the GC profiler for allocation figures:
+ * </p>
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar -prof gc [filter]
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HelpGeneratorBenchmarks {
+
+	private static final String PACKAGE_LIST = "package-list/package-list";
+
+	private LinkProvider fLinkProvider;
+	private String fComment;
+	private String fPlainComment;
+	private String fMarkup;
+
+	private String fPluginXML;
+	private XMLMemento fPluginMemento;
+
+	private CompiledModule fModule;
+	private ModuleDescriptor fModuleDefinition;
+
+	private final Utf8Buffer fTocBuffer = new Utf8Buffer();
+	private final Utf8Buffer fPageBuffer = new Utf8Buffer();
+
+	@Setup
+	public void setup() throws Exception {
+		fLinkProvider = BenchmarkFixtures.createLinkProvider(PACKAGE_LIST, 20);
+		fComment = BenchmarkFixtures.createComment();
+		fPlainComment = fComment.replaceAll("\\{@\\w+\\s+(.*?)\\}", "$1");
+		fMarkup = "if (a < b && c > d) { return \"<b>bold</b> & more\"; } " + fComment;
+
+		fPluginXML = BenchmarkFixtures.createPluginXML(1000);
+		fPluginMemento = XMLMemento.createReadRoot(new StringReader(fPluginXML));
+
+		fModule = BenchmarkFixtures.compileModule(40, 10);
+		fModuleDefinition = ModuleDescriptor.fromMemento(fPluginMemento.getChildren("extension")[0].getChildren("module")[1]);
+	}
+
+	@Benchmark
+	public String insertLinks() {
+		return fLinkProvider.insertLinks(null, fComment);
+	}
+
+	@Benchmark
+	public String insertLinksNoLinks() {
+		return fLinkProvider.insertLinks(null, fPlainComment);
+	}
+
+	@Benchmark
+	public String createClassTextJdk() {
+		return fLinkProvider.createClassText("java.util.concurrent.ConcurrentHashMap");
+	}
+
+	@Benchmark
+	public String createClassTextParentPackage() {
+		return fLinkProvider.createClassText("org.eclipse.ui.site19.views1.internal.ViewPart");
+	}
+
+	@Benchmark
+	public String createClassTextUnknown() {
+		return fLinkProvider.createClassText("com.example.unknown.Type");
+	}
+
+	@Benchmark
+	public String escapeText() {
+		return HTMLWriter.escapeText(fMarkup);
+	}
+
+	@Benchmark
+	public String escapeTextPlain() {
+		return HTMLWriter.escapeText(fPlainComment);
+	}
+
+	@Benchmark
+	public XMLMemento xmlMementoCreateReadRoot() throws Exception {
+		return XMLMemento.createReadRoot(new StringReader(fPluginXML));
+	}
+
+	@Benchmark
+	public String xmlMementoToString() {
+		return fPluginMemento.toString();
+	}
+
+	@Benchmark
+	public void xmlMementoGetChildren(final Blackhole blackhole) {
+		for (final IMemento extension : fPluginMemento.getChildren("extension")) {
+			for (final IMemento module : extension.getChildren("module"))
+				blackhole.consume(module.getChildren("dependency"));
+		}
+	}
+
+	@Benchmark
+	public String xmlMementoWriteToc() {
+		final XMLMemento root = XMLMemento.createWriteRoot("toc");
+		writeToc(root, 1000);
+		return root.toString();
+	}
+
+	@Benchmark
+	public int streamingMementoWriteToc() {
+		fTocBuffer.reset();
+		try (StreamingMemento root = StreamingMemento.createWriteRoot("toc", fTocBuffer)) {
+			writeToc(root, 1000);
+		}
+
+		return fTocBuffer.length();
+	}
+
+	@Benchmark
+	public String createContents() throws IOException {
+		return createWriter().createContents("Synthetic");
+	}
+
+	@Benchmark
+	public int writeContents() throws IOException {
+		fPageBuffer.reset();
+		createWriter().writeContents("Synthetic", fPageBuffer);
+		return fPageBuffer.length();
+	}
+
+	/**
+	 * Create a writer with fresh documentation and member lookups, so cached lookups do not leak between invocations.
+	 */
+	private HTMLWriter createWriter() {
+		return new HTMLWriter(fModule.getElement(), fLinkProvider, fModuleDefinition.getDependencies(), fModule.getDocTrees(), fModule.createDocumentation(),
+				fModule.createExportedMembers());
+	}
+
+	private static void writeToc(final IMemento root, final int topics) {
+		root.putString("label", "Modules");
+		root.putString("link_to", "../org.eclipse.ease.help/help/reference.xml#modules_anchor");
+		for (int index = 0; index < topics; index++) {
+			final IMemento topic = root.createChild("topic");
+			topic.putString("href", "help/module_org.eclipse.ease.modules.synthetic" + index + ".html");
+			topic.putString("label", "Synthetic module " + index);
+		}
+	}
+}
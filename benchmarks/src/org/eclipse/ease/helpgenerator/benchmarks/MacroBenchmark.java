@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.tools.DocumentationTool;
+
+import org.eclipse.ease.helpgenerator.ModuleDoclet;
+
+/**
+ * End-to-end benchmark. Generates synthetic module corpora of different sizes and runs {@link ModuleDoclet} through the {@link DocumentationTool} API.
+ * Each measured run writes a performance report with <i>-report</i>, its generation phases are listed below the run.
+ * <p>
+ * Usage: <code>MacroBenchmark [-modules 10,100,1000] [-methods 10] [-wi 2] [-i 3] [-work &lt;folder&gt;] [doclet options]</code>
+ * </p>
+ * Unknown arguments are passed on to the doclet.
+ */
+public class MacroBenchmark {
+
+	/** Figures of a single measured phase. Peak heap and file count are negative when not available. */
+	private static class Sample {
+		private final String fPhase;
+		private final long fWallTime;
+		private final long fCpuTime;
+		private final long fAllocated;
+		private final long fPeakHeap;
+		private final long fFiles;
+
+		Sample(final String phase, final long wallTime, final long cpuTime, final long allocated, final long peakHeap, final long files) {
+			fPhase = phase;
+			fWallTime = wallTime;
+			fCpuTime = cpuTime;
+			fAllocated = allocated;
+			fPeakHeap = peakHeap;
+			fFiles = files;
+		}
+	}
+
+	/** A measurable unit of work. */
+	private interface Phase {
+		long run() throws Exception;
+	}
+
+	/** Phase entry of a performance report, see {@link org.eclipse.ease.helpgenerator.PerformanceReport#toJson()}. */
+	private static final Pattern PHASE_PATTERN = Pattern
+			.compile("\\{\"name\": \"([^\"]*)\", \"wallNanos\": (\\d+), \"cpuNanos\": (\\d+), \"allocatedBytes\": (\\d+)\\}");
+
+	private final com.sun.management.ThreadMXBean fThreadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private int[] fModuleCounts = { 10, 100, 1000 };
+	private int fMethods = 10;
+	private int fWarmupIterations = 2;
+	private int fMeasurementIterations = 3;
+	private File fWorkFolder = new File(System.getProperty("java.io.tmpdir"), "ease-help-benchmark");
+	private final List<String> fDocletArguments = new ArrayList<>();
+
+	public static void main(final String[] args) throws Exception {
+		final MacroBenchmark benchmark = new MacroBenchmark();
+		benchmark.configure(args);
+		benchmark.run(System.out);
+	}
+
+	private void configure(final String[] args) {
+		for (int index = 0; index < args.length; index++) {
+			if ("-modules".equals(args[index])) {
+				final String[] tokens = args[++index].split(",");
+				fModuleCounts = new int[tokens.length];
+				for (int token = 0; token < tokens.length; token++)
+					fModuleCounts[token] = Integer.parseInt(tokens[token].trim());
+
+			} else if ("-methods".equals(args[index]))
+				fMethods = Integer.parseInt(args[++index]);
+
+			else if ("-wi".equals(args[index]))
+				fWarmupIterations = Integer.parseInt(args[++index]);
+
+			else if ("-i".equals(args[index]))
+				fMeasurementIterations = Integer.parseInt(args[++index]);
+
+			else if ("-work".equals(args[index]))
+				fWorkFolder = new File(args[++index]);
+
+			else
+				fDocletArguments.add(args[index]);
+		}
+	}
+
+	private void run(final PrintStream out) throws Exception {
+		fThreadBean.setThreadAllocatedMemoryEnabled(true);
+
+		final List<Sample> results = new ArrayList<>();
+		for (final int modules : fModuleCounts) {
+			final File project = new File(fWorkFolder, "corpus_" + modules);
+			BenchmarkFixtures.delete(project.toPath());
+
+			final CorpusGenerator generator = new CorpusGenerator(project, modules, fMethods, 20);
+			results.add(measure("generate corpus [" + modules + "]", () -> {
+				generator.generate();
+				return generator.getFileCount();
+			}));
+
+			for (int iteration = 1; iteration <= fWarmupIterations; iteration++) {
+				final Sample sample = measure("warmup", () -> runDoclet(project));
+				out.println(String.format(Locale.ROOT, "# %d modules, warmup %d: %d ms", modules, iteration, sample.fWallTime / 1_000_000));
+			}
+
+			final File report = new File(fWorkFolder, "report_" + modules + ".json");
+			for (int iteration = 1; iteration <= fMeasurementIterations; iteration++) {
+				Files.deleteIfExists(report.toPath());
+				final Sample sample = measure("javadoc [" + modules + "] #" + iteration, () -> runDoclet(project, "-report", report.getPath()));
+				out.println(String.format(Locale.ROOT, "%d modules, iteration %d: %d ms", modules, iteration, sample.fWallTime / 1_000_000));
+				results.add(sample);
+				results.addAll(readPhases(report));
+			}
+		}
+
+		out.println();
+		out.println(String.format(Locale.ROOT, "%-30s %12s %12s %14s %12s %8s", "Phase", "wall ms", "cpu ms", "alloc MB", "peak heap MB", "files"));
+		for (final Sample sample : results)
+			out.println(String.format(Locale.ROOT, "%-30s %12.1f %12.1f %14.1f %12s %8s", sample.fPhase, sample.fWallTime / 1e6, sample.fCpuTime / 1e6,
+					sample.fAllocated / (1024d * 1024d), (sample.fPeakHeap >= 0) ? String.format(Locale.ROOT, "%.1f", sample.fPeakHeap / (1024d * 1024d)) : "-",
+					(sample.fFiles >= 0) ? Long.toString(sample.fFiles) : "-"));
+	}
+
+	private Sample measure(final String name, final Phase phase) throws Exception {
+		System.gc();
+		resetPeakHeap();
+
+		final long threadId = Thread.currentThread().getId();
+		final long allocatedStart = fThreadBean.getThreadAllocatedBytes(threadId);
+		final long cpuStart = fThreadBean.getCurrentThreadCpuTime();
+		final long start = System.nanoTime();
+
+		final long files = phase.run();
+
+		final long wallTime = System.nanoTime() - start;
+		final long cpuTime = fThreadBean.getCurrentThreadCpuTime() - cpuStart;
+		final long allocated = fThreadBean.getThreadAllocatedBytes(threadId) - allocatedStart;
+
+		return new Sample(name, wallTime, cpuTime, allocated, getPeakHeap(), files);
+	}
+
+	/**
+	 * Run the doclet on a corpus project. Previously generated help content is removed first so every run performs a full generation.
+	 *
+	 * @return amount of files written to the help folder
+	 */
+	private long runDoclet(final File project, final String... arguments) throws IOException {
+		final Path helpFolder = new File(project, "help").toPath();
+		BenchmarkFixtures.delete(helpFolder);
+
+		final List<String> options = new ArrayList<>(fDocletArguments);
+		options.addAll(Arrays.asList(arguments));
+		BenchmarkFixtures.runDoclet(project, options);
+
+		if (!Files.isDirectory(helpFolder))
+			return 0;
+
+		try (Stream<Path> files = Files.list(helpFolder)) {
+			return files.count();
+		}
+	}
+
+	/**
+	 * Read the generation phases from a performance report written by the doclet.
+	 *
+	 * @return one sample per phase, in execution order
+	 */
+	private static List<Sample> readPhases(final File report) throws IOException {
+		final String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+		final int start = content.indexOf("\"phases\": [");
+		final int end = content.indexOf(']', start);
+		if ((start < 0) || (end < 0))
+			throw new IOException("No phases found in performance report " + report);
+
+		final List<Sample> phases = new ArrayList<>();
+		final Matcher matcher = PHASE_PATTERN.matcher(content.substring(start, end));
+		while (matcher.find())
+			phases.add(new Sample("  " + matcher.group(1), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)), Long.parseLong(matcher.group(4)),
+					-1, -1));
+
+		return phases;
+	}
+
+	private static void resetPeakHeap() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP)
+				pool.resetPeakUsage();
+		}
+	}
+
+	private static long getPeakHeap() {
+		long peak = 0;
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		}
+
+		return peak;
+	}
+}
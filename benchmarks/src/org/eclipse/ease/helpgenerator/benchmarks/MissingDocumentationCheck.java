@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator.benchmarks;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.ease.helpgenerator.ModuleDoclet;
+
+/**
+ * Check for modules without any Javadoc. Generates a small corpus, removes the class comment of one module and runs the doclet in check-only mode and in
+ * generation mode. Both runs need to complete and report the missing class comment.
+ * <p>
+ * Usage: <code>MissingDocumentationCheck [work folder]</code>, exits with a non-zero code on failure.
+ * </p>
+ */
+public class MissingDocumentationCheck {
+
+	private static final String UNDOCUMENTED_CLASS = "Bench1Module";
+	private static final String UNDOCUMENTED_MODULE = CorpusGenerator.PLUGIN_ID + ".module1";
+
+	public static void main(final String[] args) throws Exception {
+		final Path work = (args.length > 0) ? new File(args[0]).toPath() : Files.createTempDirectory("missingDocumentationCheck");
+		final File project = work.resolve("project").toFile();
+
+		BenchmarkFixtures.delete(work);
+		new CorpusGenerator(project, 3, 3, 20).generate();
+
+		// drop the class comment including its delimiters
+		final Path source = new File(new File(project, "src"), CorpusGenerator.PACKAGE_NAME.replace('.', File.separatorChar) + File.separator
+				+ UNDOCUMENTED_CLASS + ".java").toPath();
+		final String content = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+		Files.write(source, content.replaceFirst("(?s)/\\*\\*.*?\\*/\\s*public class", "public class").getBytes(StandardCharsets.UTF_8));
+
+		final List<String> failures = new ArrayList<>();
+		final String message = "Missing class comment for " + UNDOCUMENTED_CLASS;
+
+		try {
+			final String report = BenchmarkFixtures.runDoclet(project, Arrays.asList("-checkOnly", "true"));
+			if (!report.contains(message))
+				failures.add("check-only report does not contain \"" + message + "\"");
+
+		} catch (final Exception e) {
+			failures.add("check-only run failed: " + e);
+		}
+
+		try {
+			BenchmarkFixtures.runDoclet(project, Collections.emptyList());
+			if (!new File(new File(project, "help"), ModuleDoclet.createHTMLFileName(UNDOCUMENTED_MODULE)).isFile())
+				failures.add("no help page created for " + UNDOCUMENTED_MODULE);
+
+		} catch (final Exception e) {
+			failures.add("generation run failed: " + e);
+		}
+
+		if (failures.isEmpty()) {
+			System.out.println("Missing documentation check passed");
+			BenchmarkFixtures.delete(work);
+
+		} else {
+			for (final String failure : failures)
+				System.out.println("ERROR: " + failure);
+
+			System.out.println("Outputs kept in " + work);
+			System.exit(1);
+		}
+	}
+}
@@ -3,5 +3,7 @@ module helpgenerator {
     requires java.xml;
     requires jdk.compiler;
     requires java.base;
+    requires jdk.management;
+    requires jdk.jfr;
     exports org.eclipse.ease.helpgenerator;
 }
\ No newline at end of file
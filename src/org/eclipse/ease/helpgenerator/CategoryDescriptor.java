@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+/**
+ * Compact summary of a module category definition from plugin.xml.
+ */
+public class CategoryDescriptor {
+
+	private final String fId;
+	private final String fName;
+	private final String fParent;
+
+	public CategoryDescriptor(final String id, final String name, final String parent) {
+		fId = id;
+		fName = name;
+		fParent = parent;
+	}
+
+	/**
+	 * Create a descriptor from a <i>category</i> node of the <i>org.eclipse.ease.modules</i> extension point.
+	 *
+	 * @param node
+	 *            category node
+	 * @return category descriptor
+	 */
+	public static CategoryDescriptor fromMemento(final IMemento node) {
+		return new CategoryDescriptor(node.getString("id"), node.getString("name"), node.getString("parent"));
+	}
+
+	public String getId() {
+		return fId;
+	}
+
+	public String getName() {
+		return fName;
+	}
+
+	/**
+	 * Get the id of the parent category.
+	 *
+	 * @return parent category id or <code>null</code>
+	 */
+	public String getParent() {
+		return fParent;
+	}
+}
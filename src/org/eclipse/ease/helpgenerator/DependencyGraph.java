@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Graph of module pages and the pages they refer to. Edges are recorded while pages are rendered: declared module dependencies, <code>{&#64;module}</code>
+ * links and module classes extending other module classes. Each module also stores a signature of everything other pages may refer to (name, exported
+ * methods and aliases).
+ * <p>
+ * When a module changes in watch mode, {@link #getInvalidated(Collection)} computes the transitive set of pages referring to it, so partial rebuilds stay
+ * correct without regenerating everything. Generation runs always render all pages and build the graph from scratch. {@link #write(File)} exports it as a
+ * sorted, line based text file for inspection and tooling, it is never read back.
+ * </p>
+ */
+public class DependencyGraph {
+
+	public enum Kind {
+		/** Module declares a dependency in plugin.xml. */
+		DEPENDENCY,
+
+		/** Module page contains a {&#64;module} link. */
+		LINK,
+
+		/** Module class extends another module class. */
+		INHERITANCE
+	}
+
+	private static final String HEADER = "# module dependency graph";
+	private static final String MODULE = "module";
+	private static final String EDGE = "edge";
+
+	/** Signatures by module id. */
+	private final Map<String, String> fSignatures = new TreeMap<>();
+
+	/** Outgoing edges: module id -> referenced module id -> edge kinds. */
+	private final Map<String, Map<String, Set<Kind>>> fEdges = new TreeMap<>();
+
+	/** Incoming edges: module id -> modules referring to it. */
+	private final Map<String, Set<String>> fReferrers = new HashMap<>();
+
+	/**
+	 * Set the signature of a module and remove all its outgoing edges. To be called before the edges of a freshly rendered page are added.
+	 *
+	 * @param moduleId
+	 *            module id
+	 * @param signature
+	 *            hash of data other pages depend on
+	 */
+	public void resetModule(final String moduleId, final String signature) {
+		final Map<String, Set<Kind>> edges = fEdges.remove(moduleId);
+		if (edges != null) {
+			for (final String target : edges.keySet())
+				fReferrers.getOrDefault(target, Collections.emptySet()).remove(moduleId);
+		}
+
+		fSignatures.put(moduleId, signature);
+	}
+
+	/**
+	 * Remove a module and all its outgoing edges. Edges of other modules referring to it are kept, so they still get invalidated.
+	 */
+	public void removeModule(final String moduleId) {
+		resetModule(moduleId, null);
+		fSignatures.remove(moduleId);
+	}
+
+	public void addEdge(final String from, final String to, final Kind kind) {
+		if (!from.equals(to)) {
+			fEdges.computeIfAbsent(from, k -> new TreeMap<>()).computeIfAbsent(to, k -> EnumSet.noneOf(Kind.class)).add(kind);
+			fReferrers.computeIfAbsent(to, k -> new HashSet<>()).add(from);
+		}
+	}
+
+	/**
+	 * Get the signature of a module.
+	 *
+	 * @return signature or <code>null</code> when the module is unknown
+	 */
+	public String getSignature(final String moduleId) {
+		return fSignatures.get(moduleId);
+	}
+
+	/**
+	 * Get all registered module ids.
+	 */
+	public Set<String> getModules() {
+		return Collections.unmodifiableSet(fSignatures.keySet());
+	}
+
+	/**
+	 * Get edges starting at a module.
+	 *
+	 * @return referenced module ids with edge kinds, sorted by id
+	 */
+	public Map<String, Set<Kind>> getEdges(final String moduleId) {
+		return Collections.unmodifiableMap(fEdges.getOrDefault(moduleId, Collections.emptyMap()));
+	}
+
+	/**
+	 * Compute pages to invalidate after modules changed: the changed modules and all modules referring to them, directly or transitively.
+	 *
+	 * @param changedModules
+	 *            ids of modules whose signature changed or that got removed
+	 * @return sorted module ids to regenerate
+	 */
+	public Set<String> getInvalidated(final Collection<String> changedModules) {
+		final Set<String> invalidated = new TreeSet<>(changedModules);
+		final Deque<String> toVisit = new ArrayDeque<>(changedModules);
+		while (!toVisit.isEmpty()) {
+			for (final String referrer : fReferrers.getOrDefault(toVisit.pop(), Collections.emptySet())) {
+				if (invalidated.add(referrer))
+					toVisit.push(referrer);
+			}
+		}
+
+		return invalidated;
+	}
+
+	/**
+	 * Export the graph. Output is sorted to be reproducible.
+	 */
+	public void write(final File file) throws IOException {
+		final StringBuilder content = new StringBuilder();
+		content.append(HEADER).append(ModuleDoclet.LINE_DELIMITER);
+
+		for (final Entry<String, String> module : fSignatures.entrySet())
+			content.append(MODULE).append(' ').append(module.getKey()).append(' ').append(module.getValue()).append(ModuleDoclet.LINE_DELIMITER);
+
+		for (final Entry<String, Map<String, Set<Kind>>> source : fEdges.entrySet()) {
+			for (final Entry<String, Set<Kind>> target : source.getValue().entrySet()) {
+				for (final Kind kind : target.getValue())
+					content.append(EDGE).append(' ').append(source.getKey()).append(' ').append(target.getKey()).append(' ').append(kind.name().toLowerCase())
+							.append(ModuleDoclet.LINE_DELIMITER);
+			}
+		}
+
+		if ((file.getParentFile() != null) && (!file.getParentFile().exists()))
+			file.getParentFile().mkdirs();
+
+		Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Create a hex encoded SHA-256 hash of some content.
+	 */
+	public static String hash(final String content) {
+		return Hashes.toHex(Hashes.createDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.lang.model.element.Element;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.TreePath;
+
+/**
+ * Collects issues found by the check-only mode and reports them as JSON. Issues carry the source position of the documented element so CI tooling can
+ * annotate the offending lines.
+ */
+class DocumentationCheck {
+
+	/** Issue type for missing documentation content. */
+	static final String MISSING_DOCUMENTATION = "missingDocumentation";
+
+	/** Issue type for documentation that does not result in well formed markup. */
+	static final String INVALID_CONTENT = "invalidContent";
+
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+	private static XMLInputFactory createInputFactory() {
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	/**
+	 * Verify that documentation content is well formed markup.
+	 *
+	 * @param content
+	 *            content as inserted into a help page
+	 * @return problem description or <code>null</code> when the content is valid
+	 */
+	static String verifyMarkup(final String content) {
+		try {
+			final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader("<div>" + content + "</div>"));
+			try {
+				while (reader.hasNext())
+					reader.next();
+			} finally {
+				reader.close();
+			}
+
+			return null;
+
+		} catch (final XMLStreamException e) {
+			return e.getMessage().replaceAll("\\s+", " ").trim();
+		}
+	}
+
+	private static class Issue {
+		private final String fModule;
+		private final String fType;
+		private final boolean fError;
+		private final String fSource;
+		private final long fLine;
+		private final String fElement;
+		private final String fMessage;
+
+		private Issue(final String module, final String type, final boolean error, final String source, final long line, final String element,
+				final String message) {
+			fModule = module;
+			fType = type;
+			fError = error;
+			fSource = source;
+			fLine = line;
+			fElement = element;
+			fMessage = message;
+		}
+	}
+
+	private final DocTrees fDocTrees;
+	private final List<Issue> fIssues = new ArrayList<>();
+	private int fModules = 0;
+	private int fErrors = 0;
+
+	DocumentationCheck(final DocTrees docTrees) {
+		fDocTrees = docTrees;
+	}
+
+	void addModule() {
+		fModules++;
+	}
+
+	/**
+	 * Record an issue.
+	 *
+	 * @param module
+	 *            module id
+	 * @param type
+	 *            issue type, eg {@link #MISSING_DOCUMENTATION}
+	 * @param error
+	 *            <code>true</code> for errors, <code>false</code> for warnings
+	 * @param element
+	 *            element the issue was found for, used to locate the source
+	 * @param message
+	 *            issue description
+	 */
+	void addIssue(final String module, final String type, final boolean error, final Element element, final String message) {
+		String source = null;
+		long line = -1;
+
+		final TreePath path = fDocTrees.getPath(element);
+		if (path != null) {
+			final CompilationUnitTree compilationUnit = path.getCompilationUnit();
+			source = compilationUnit.getSourceFile().getName();
+
+			final long position = fDocTrees.getSourcePositions().getStartPosition(compilationUnit, path.getLeaf());
+			if (position >= 0)
+				line = compilationUnit.getLineMap().getLineNumber(position);
+		}
+
+		fIssues.add(new Issue(module, type, error, source, line, element.toString(), message));
+		if (error)
+			fErrors++;
+	}
+
+	int getErrorCount() {
+		return fErrors;
+	}
+
+	String toJson() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("{\n");
+		builder.append("\t\"modules\": ").append(fModules).append(",\n");
+		builder.append("\t\"errors\": ").append(fErrors).append(",\n");
+		builder.append("\t\"warnings\": ").append(fIssues.size() - fErrors).append(",\n");
+		builder.append("\t\"issues\": [");
+		for (int index = 0; index < fIssues.size(); index++) {
+			final Issue issue = fIssues.get(index);
+			builder.append((index == 0) ? "\n" : ",\n");
+			builder.append("\t\t{\"module\": \"").append(PerformanceReport.escapeJson(issue.fModule)).append("\", \"type\": \"").append(issue.fType)
+					.append("\", \"severity\": \"").append(issue.fError ? "error" : "warning").append('"');
+
+			if (issue.fSource != null)
+				builder.append(", \"source\": \"").append(PerformanceReport.escapeJson(issue.fSource)).append("\", \"line\": ").append(issue.fLine);
+
+			builder.append(", \"element\": \"").append(PerformanceReport.escapeJson(issue.fElement)).append("\", \"message\": \"")
+					.append(PerformanceReport.escapeJson(issue.fMessage)).append("\"}");
+		}
+
+		if (!fIssues.isEmpty())
+			builder.append("\n\t");
+
+		builder.append("]\n}\n");
+
+		return builder.toString();
+	}
+}
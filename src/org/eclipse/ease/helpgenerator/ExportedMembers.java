@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import org.eclipse.ease.modules.WrapToScript;
+
+/**
+ * Resolves methods and fields a module exports to scripts.
+ * <p>
+ * Members are collected from the module class, its superclasses and implemented interfaces. Overridden and hidden members are replaced by the most derived
+ * declaration, just like the script runtime sees them via reflection. When any member in the hierarchy carries a <i>@WrapToScript</i> annotation, only
+ * annotated members are exported.
+ * </p>
+ * <p>
+ * One instance is shared by all modules of a run. Member lists are cached per type, so a base class shared by many modules is walked once.
+ * </p>
+ */
+public class ExportedMembers {
+
+	private static final String WRAP_TO_SCRIPT = WrapToScript.class.getSimpleName();
+	private static final String QUALIFIED_WRAP_TO_SCRIPT = WrapToScript.class.getName();
+
+	private final Elements fElements;
+	private final Types fTypes;
+
+	/** Public methods visible in a type, including inherited ones. Keyed by method name, each entry holding all overloads. */
+	private final Map<TypeElement, Map<String, List<ExecutableElement>>> fVisibleMethods = new HashMap<>();
+
+	/** Public fields visible in a type, including inherited ones. Keyed by field name. */
+	private final Map<TypeElement, Map<String, VariableElement>> fVisibleFields = new HashMap<>();
+
+	private final Map<TypeElement, Boolean> fAnnotated = new HashMap<>();
+	private final Map<TypeElement, List<ExecutableElement>> fExportedMethods = new HashMap<>();
+	private final Map<TypeElement, List<VariableElement>> fExportedFields = new HashMap<>();
+	private final Map<ExecutableElement, Collection<String>> fAliases = new HashMap<>();
+
+	public ExportedMembers(final Elements elements, final Types types) {
+		fElements = elements;
+		fTypes = types;
+	}
+
+	/**
+	 * Get methods exported to scripts, sorted by name.
+	 *
+	 * @return exported methods
+	 */
+	public List<ExecutableElement> getExportedMethods(final TypeElement type) {
+		List<ExecutableElement> methods = fExportedMethods.get(type);
+		if (methods == null) {
+			final boolean annotated = hasWrapToScriptAnnotation(type);
+
+			methods = new ArrayList<>();
+			for (final List<ExecutableElement> overloads : getVisibleMethods(type).values()) {
+				for (final ExecutableElement method : overloads) {
+					if ((!annotated) || (getWrapAnnotation(method) != null))
+						methods.add(method);
+				}
+			}
+
+			// sort methods alphabetically
+			Collections.sort(methods, Comparator.comparing(o -> o.getSimpleName().toString()));
+
+			methods = Collections.unmodifiableList(methods);
+			fExportedMethods.put(type, methods);
+		}
+
+		return methods;
+	}
+
+	/**
+	 * Get fields exported to scripts, sorted by name.
+	 *
+	 * @return exported fields
+	 */
+	public List<VariableElement> getExportedFields(final TypeElement type) {
+		List<VariableElement> fields = fExportedFields.get(type);
+		if (fields == null) {
+			final boolean annotated = hasWrapToScriptAnnotation(type);
+
+			fields = new ArrayList<>();
+			for (final VariableElement field : getVisibleFields(type).values()) {
+				if ((!annotated) || (getWrapAnnotation(field) != null))
+					fields.add(field);
+			}
+
+			// sort fields alphabetically
+			Collections.sort(fields, Comparator.comparing(o -> o.getSimpleName().toString()));
+
+			fields = Collections.unmodifiableList(fields);
+			fExportedFields.put(type, fields);
+		}
+
+		return fields;
+	}
+
+	/**
+	 * Get the aliases defined by the <i>@WrapToScript</i> annotation of a method.
+	 *
+	 * @return aliases in declaration order, empty when none are defined
+	 */
+	public Collection<String> getAliases(final ExecutableElement method) {
+		Collection<String> aliases = fAliases.get(method);
+		if (aliases == null) {
+			aliases = Collections.emptySet();
+
+			final AnnotationMirror annotation = getWrapAnnotation(method);
+			if (annotation != null) {
+				for (final Entry<? extends ExecutableElement, ? extends AnnotationValue> pair : annotation.getElementValues().entrySet()) {
+					if ("alias".equals(pair.getKey().getSimpleName().toString())) {
+						final Collection<String> candidates = new LinkedHashSet<>();
+						for (final String token : pair.getValue().getValue().toString().split(WrapToScript.DELIMITER)) {
+							if (!token.trim().isEmpty())
+								candidates.add(token.trim());
+						}
+
+						if (!candidates.isEmpty())
+							aliases = Collections.unmodifiableCollection(candidates);
+					}
+				}
+			}
+
+			fAliases.put(method, aliases);
+		}
+
+		return aliases;
+	}
+
+	/**
+	 * Check whether a type or any of its supertypes declares a method or field annotated with <i>@WrapToScript</i>.
+	 */
+	public boolean hasWrapToScriptAnnotation(final TypeElement type) {
+		Boolean annotated = fAnnotated.get(type);
+		if (annotated == null) {
+			annotated = Boolean.FALSE;
+			for (final Element element : type.getEnclosedElements()) {
+				if (((ElementKind.METHOD.equals(element.getKind())) || (ElementKind.FIELD.equals(element.getKind()))) && (getWrapAnnotation(element) != null)) {
+					annotated = Boolean.TRUE;
+					break;
+				}
+			}
+
+			if (!annotated) {
+				for (final TypeElement superType : getSuperTypes(type)) {
+					if (hasWrapToScriptAnnotation(superType)) {
+						annotated = Boolean.TRUE;
+						break;
+					}
+				}
+			}
+
+			fAnnotated.put(type, annotated);
+		}
+
+		return annotated;
+	}
+
+	/**
+	 * Get the <i>@WrapToScript</i> annotation of an element.
+	 *
+	 * @return annotation or <code>null</code>
+	 */
+	public static AnnotationMirror getWrapAnnotation(final Element element) {
+		for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			final String annotationType = annotation.getAnnotationType().toString();
+			if ((QUALIFIED_WRAP_TO_SCRIPT.equals(annotationType)) || (WRAP_TO_SCRIPT.equals(annotationType)))
+				return annotation;
+		}
+
+		return null;
+	}
+
+	private Map<String, List<ExecutableElement>> getVisibleMethods(final TypeElement type) {
+		Map<String, List<ExecutableElement>> methods = fVisibleMethods.get(type);
+		if (methods == null) {
+			methods = new LinkedHashMap<>();
+
+			// inherited methods: superclass first so concrete implementations win over interface declarations
+			final List<TypeElement> superTypes = getSuperTypes(type);
+			Collections.reverse(superTypes);
+			for (final TypeElement superType : superTypes) {
+				for (final List<ExecutableElement> overloads : getVisibleMethods(superType).values()) {
+					for (final ExecutableElement candidate : overloads)
+						addInheritedMethod(methods, candidate, type);
+				}
+			}
+
+			// own methods replace overridden and hidden ones
+			for (final Element element : type.getEnclosedElements()) {
+				if ((ElementKind.METHOD.equals(element.getKind())) && (isPublic(element))) {
+					final ExecutableElement method = (ExecutableElement) element;
+					final List<ExecutableElement> overloads = methods.computeIfAbsent(method.getSimpleName().toString(), k -> new ArrayList<>());
+
+					for (final Iterator<ExecutableElement> iterator = overloads.iterator(); iterator.hasNext();) {
+						final ExecutableElement inherited = iterator.next();
+						if ((fElements.overrides(method, inherited, type)) || (fElements.hides(method, inherited)))
+							iterator.remove();
+					}
+
+					overloads.add(method);
+				}
+			}
+
+			fVisibleMethods.put(type, methods);
+		}
+
+		return methods;
+	}
+
+	private void addInheritedMethod(final Map<String, List<ExecutableElement>> methods, final ExecutableElement candidate, final TypeElement type) {
+		final List<ExecutableElement> overloads = methods.computeIfAbsent(candidate.getSimpleName().toString(), k -> new ArrayList<>());
+
+		for (final ExecutableElement existing : overloads) {
+			// same declaration reached via multiple paths or already implemented by a more specific supertype
+			if ((existing.equals(candidate)) || (fElements.overrides(existing, candidate, type)))
+				return;
+		}
+
+		overloads.add(candidate);
+	}
+
+	private Map<String, VariableElement> getVisibleFields(final TypeElement type) {
+		Map<String, VariableElement> fields = fVisibleFields.get(type);
+		if (fields == null) {
+			fields = new LinkedHashMap<>();
+
+			for (final TypeElement superType : getSuperTypes(type))
+				getVisibleFields(superType).forEach(fields::putIfAbsent);
+
+			// own fields hide inherited fields of the same name
+			for (final Element element : type.getEnclosedElements()) {
+				if ((ElementKind.FIELD.equals(element.getKind())) && (isPublic(element)))
+					fields.put(element.getSimpleName().toString(), (VariableElement) element);
+			}
+
+			fVisibleFields.put(type, fields);
+		}
+
+		return fields;
+	}
+
+	/**
+	 * Get the direct supertypes of a type: interfaces in declaration order followed by the superclass. {@link Object} is excluded as it never contributes
+	 * script members.
+	 */
+	private List<TypeElement> getSuperTypes(final TypeElement type) {
+		final List<TypeElement> superTypes = new ArrayList<>();
+		for (final TypeMirror candidate : type.getInterfaces())
+			addSuperType(superTypes, candidate);
+
+		addSuperType(superTypes, type.getSuperclass());
+
+		return superTypes;
+	}
+
+	private void addSuperType(final List<TypeElement> superTypes, final TypeMirror candidate) {
+		final Element element = fTypes.asElement(candidate);
+		if ((element instanceof TypeElement) && (!Object.class.getName().equals(((TypeElement) element).getQualifiedName().toString())))
+			superTypes.add((TypeElement) element);
+	}
+
+	private static boolean isPublic(final Element element) {
+		if (element.getModifiers().contains(Modifier.PUBLIC))
+			return true;
+
+		// interface members are implicitly public unless declared private
+		return (element.getEnclosingElement().getKind() == ElementKind.INTERFACE) && (!element.getModifiers().contains(Modifier.PRIVATE));
+	}
+}
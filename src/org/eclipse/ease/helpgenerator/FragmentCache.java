@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Persistent, content addressed cache for rendered HTML fragments. Fragments are stored in one file per key, where the key is a hash of all inputs of the
+ * fragment (doc comments, signature, annotations, link configuration) and of the generator itself. A changed input simply results in a new key, so entries
+ * never need to be invalidated. The cache size on disk is bounded, least recently used entries are evicted when the cache gets closed.
+ */
+public class FragmentCache implements Closeable {
+
+	/** A cached fragment together with the documentation errors reported and the modules linked while it was rendered. */
+	public static final class Fragment {
+		private final byte[] fContent;
+		private final List<String> fErrors;
+		private final List<String> fModuleLinks;
+
+		Fragment(final byte[] content, final List<String> errors, final List<String> moduleLinks) {
+			fContent = content;
+			fErrors = errors;
+			fModuleLinks = moduleLinks;
+		}
+
+		/**
+		 * @return UTF-8 encoded fragment
+		 */
+		public byte[] getContent() {
+			return fContent;
+		}
+
+		public List<String> getErrors() {
+			return fErrors;
+		}
+
+		/**
+		 * @return ids of modules referenced by <code>{&#64;module}</code> links in the fragment
+		 */
+		public List<String> getModuleLinks() {
+			return fModuleLinks;
+		}
+	}
+
+	/** Bump when the storage format changes. */
+	private static final int FORMAT_VERSION = 2;
+
+	private static final String EXTENSION = ".fragment";
+
+	private final Path fFolder;
+	private final long fMaxSize;
+	private final String fGeneratorFingerprint;
+
+	private int fHits = 0;
+	private int fMisses = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param folder
+	 *            cache folder, created when needed
+	 * @param maxSize
+	 *            maximum size of all cached fragments in bytes
+	 */
+	public FragmentCache(final File folder, final long maxSize) throws IOException {
+		fFolder = folder.toPath();
+		fMaxSize = maxSize;
+		fGeneratorFingerprint = createGeneratorFingerprint();
+
+		Files.createDirectories(fFolder);
+	}
+
+	/**
+	 * Create a cache key from fragment inputs. The generator version is part of every key, so an updated doclet never reuses fragments of an older one.
+	 *
+	 * @param inputs
+	 *            textual representation of all fragment inputs
+	 * @return cache key
+	 */
+	public String createKey(final CharSequence inputs) {
+		return DependencyGraph.hash(fGeneratorFingerprint + '\n' + inputs);
+	}
+
+	/**
+	 * Get a cached fragment. A hit marks the entry as recently used.
+	 *
+	 * @return fragment or <code>null</code> when not cached
+	 */
+	public Fragment get(final String key) {
+		final Path file = fFolder.resolve(key + EXTENSION);
+		try {
+			final Fragment fragment = read(Files.readAllBytes(file));
+			if (fragment != null) {
+				Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+				fHits++;
+				return fragment;
+			}
+
+		} catch (final NoSuchFileException e) {
+			// not cached
+
+		} catch (final IOException e) {
+			// unreadable entry, render again and replace
+		}
+
+		fMisses++;
+		return null;
+	}
+
+	/**
+	 * Store a fragment. Entries are written to a temporary file first, so concurrent or aborted runs never see partial entries.
+	 *
+	 * @param content
+	 *            UTF-8 encoded fragment
+	 * @param errors
+	 *            documentation errors reported while rendering the fragment
+	 * @param moduleLinks
+	 *            ids of modules linked from the fragment
+	 */
+	public void put(final String key, final byte[] content, final Collection<String> errors, final Collection<String> moduleLinks) throws IOException {
+		final ByteArrayOutputStream data = new ByteArrayOutputStream(content.length + 64);
+		try (DataOutputStream output = new DataOutputStream(data)) {
+			output.writeInt(FORMAT_VERSION);
+			output.writeInt(errors.size());
+			for (final String error : errors)
+				output.writeUTF(error);
+
+			output.writeInt(moduleLinks.size());
+			for (final String moduleLink : moduleLinks)
+				output.writeUTF(moduleLink);
+
+			output.writeInt(content.length);
+			output.write(content);
+		}
+
+		final Path temporaryFile = Files.createTempFile(fFolder, key, ".tmp");
+		Files.write(temporaryFile, data.toByteArray());
+		Files.move(temporaryFile, fFolder.resolve(key + EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public int getHits() {
+		return fHits;
+	}
+
+	public int getMisses() {
+		return fMisses;
+	}
+
+	/**
+	 * Evict least recently used entries until the cache fits into its size budget.
+	 */
+	@Override
+	public void close() throws IOException {
+		final List<Entry<Path, BasicFileAttributes>> entries = new ArrayList<>();
+		long size = 0;
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(fFolder, "*" + EXTENSION)) {
+			for (final Path file : stream) {
+				final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				entries.add(new SimpleEntry<>(file, attributes));
+				size += attributes.size();
+			}
+		}
+
+		if (size > fMaxSize) {
+			Collections.sort(entries, Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+			for (final Entry<Path, BasicFileAttributes> entry : entries) {
+				if (size <= fMaxSize)
+					break;
+
+				Files.deleteIfExists(entry.getKey());
+				size -= entry.getValue().size();
+			}
+		}
+	}
+
+	private static Fragment read(final byte[] data) throws IOException {
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+			if (input.readInt() != FORMAT_VERSION)
+				return null;
+
+			final int errorCount = input.readInt();
+			final List<String> errors = new ArrayList<>(errorCount);
+			for (int index = 0; index < errorCount; index++)
+				errors.add(input.readUTF());
+
+			final int moduleLinkCount = input.readInt();
+			final List<String> moduleLinks = new ArrayList<>(moduleLinkCount);
+			for (int index = 0; index < moduleLinkCount; index++)
+				moduleLinks.add(input.readUTF());
+
+			final byte[] content = new byte[input.readInt()];
+			input.readFully(content);
+
+			return new Fragment(content, errors, moduleLinks);
+		}
+	}
+
+	/**
+	 * Fingerprint of the generator classes. Uses size and modification time of the doclet jar, or of the class files when running from a folder.
+	 */
+	private static String createGeneratorFingerprint() {
+		final StringBuilder fingerprint = new StringBuilder(Integer.toString(FORMAT_VERSION));
+
+		try {
+			final Path location = new File(HTMLWriter.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toPath();
+			final Path classFolder = Files.isDirectory(location) ? location.resolve(HTMLWriter.class.getPackage().getName().replace('.', File.separatorChar))
+					: location;
+
+			if (Files.isDirectory(classFolder)) {
+				try (DirectoryStream<Path> stream = Files.newDirectoryStream(classFolder, "*.class")) {
+					final List<Path> classFiles = new ArrayList<>();
+					stream.forEach(classFiles::add);
+					Collections.sort(classFiles);
+
+					for (final Path classFile : classFiles)
+						fingerprint.append('|').append(classFile.getFileName()).append(':').append(Files.size(classFile)).append(':')
+								.append(Files.getLastModifiedTime(classFile).toMillis());
+				}
+			} else
+				fingerprint.append('|').append(Files.size(classFolder)).append(':').append(Files.getLastModifiedTime(classFolder).toMillis());
+
+		} catch (final Exception e) {
+			// no code source available, rely on the format version only
+		}
+
+		return fingerprint.toString();
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted by the help generator. When no recording is active the events are disabled and their cost is negligible.
+ */
+public final class GeneratorEvents {
+
+	private static final String CATEGORY = "EASE Help Generator";
+
+	private GeneratorEvents() {
+		// container class
+	}
+
+	@Name("org.eclipse.ease.helpgenerator.ModuleRender")
+	@Label("Module Render")
+	@Description("Creation of a module help page")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class ModuleRenderEvent extends Event {
+		@Label("Module ID")
+		public String moduleId;
+
+		@Label("Class Name")
+		public String className;
+
+		@Label("Method Count")
+		public int methodCount;
+
+		@Label("Content Length")
+		@Description("UTF-8 encoded size of the rendered page")
+		@DataAmount
+		public long contentLength;
+
+		@Label("Documentation Errors")
+		public int documentationErrors;
+	}
+
+	@Name("org.eclipse.ease.helpgenerator.VerifyContent")
+	@Label("Verify Content")
+	@Description("Well-formedness check of a rendered page")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class VerifyContentEvent extends Event {
+		@Label("Module ID")
+		public String moduleId;
+
+		@Label("Class Name")
+		public String className;
+
+		@Label("Content Length")
+		public long contentLength;
+
+		@Label("Valid")
+		public boolean valid;
+	}
+
+	@Name("org.eclipse.ease.helpgenerator.FileWrite")
+	@Label("Help File Write")
+	@Description("Generated file written to disk or to the help archive")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class FileWriteEvent extends Event {
+		@Label("Path")
+		public String path;
+
+		@Label("Bytes Written")
+		@DataAmount
+		public long bytesWritten;
+	}
+
+	@Name("org.eclipse.ease.helpgenerator.PackageListLoad")
+	@Label("Package List Load")
+	@Description("Load of an external package-list for -link/-linkoffline")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class PackageListLoadEvent extends Event {
+		@Label("Site")
+		public String site;
+
+		@Label("Location")
+		public String location;
+
+		@Label("Package Count")
+		public int packageCount;
+
+		@Label("Success")
+		public boolean success;
+	}
+
+	@Name("org.eclipse.ease.helpgenerator.LinkResolution")
+	@Label("Link Resolution")
+	@Description("Sampled resolution of a class or link token to an external documentation URL")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class LinkResolutionEvent extends Event {
+
+		/** Only every n-th resolution is recorded. */
+		private static final int SAMPLE_RATE = 32;
+
+		private static final AtomicLong COUNTER = new AtomicLong();
+
+		@Label("Class Name")
+		@Description("Class containing the link")
+		public String className;
+
+		@Label("Target")
+		public String target;
+
+		@Label("Resolved")
+		public boolean resolved;
+
+		@Label("Sample Rate")
+		public int sampleRate = SAMPLE_RATE;
+
+		/**
+		 * Create an event for the next link resolution if it is part of the sample.
+		 *
+		 * @return event to be committed or <code>null</code> when this resolution is not sampled
+		 */
+		public static LinkResolutionEvent sample() {
+			final LinkResolutionEvent event = new LinkResolutionEvent();
+			if ((!event.isEnabled()) || ((COUNTER.getAndIncrement() % SAMPLE_RATE) != 0))
+				return null;
+
+			event.begin();
+			return event;
+		}
+	}
+}
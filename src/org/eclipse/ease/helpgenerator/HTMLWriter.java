@@ -10,14 +10,8 @@
  *******************************************************************************/
 package org.eclipse.ease.helpgenerator;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
-import java.io.UnsupportedEncodingException;
 import java.lang.invoke.MethodType;
-import java.lang.reflect.Type;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import javax.lang.model.element.*;
@@ -26,15 +20,19 @@ import com.sun.source.doctree.DocCommentTree;
 import com.sun.source.doctree.DocTree;
 import com.sun.source.doctree.ParamTree;
 import javax.lang.model.element.VariableElement;
-import javax.lang.model.util.ElementScanner9;
+import javax.lang.model.type.TypeMirror;
 
 import com.sun.source.doctree.ThrowsTree;
-import com.sun.source.util.DocTreeScanner;
 import com.sun.source.util.DocTrees;
 //import javax.lang.model.type.Type;
 
 public class HTMLWriter {
 
+	/** Renders a cacheable fragment. */
+	private interface FragmentRenderer {
+		void render(Utf8Buffer buffer) throws IOException;
+	}
+
 	private class Overview implements Comparable<Overview> {
 		private final String fTitle;
 		private final String fLinkID;
@@ -54,12 +52,6 @@ public class HTMLWriter {
 		}
 	};
 
-	private interface CommentExtractor {
-		String extract(ExecutableElement method);
-	};
-
-	private static final String WRAP_TO_SCRIPT = "WrapToScript";
-	private static final String QUALIFIED_WRAP_TO_SCRIPT = "org.eclipse.ease.modules." + WRAP_TO_SCRIPT;
 	private static final Object SCRIPT_PARAMETER = "ScriptParameter";
 	private static final Object QUALIFIED_SCRIPT_PARAMETER = "org.eclipse.ease.modules." + SCRIPT_PARAMETER;
 
@@ -67,93 +59,50 @@ public class HTMLWriter {
 
 	private final LinkProvider fLinkProvider;
 	private final Element fClazz;
-	private final IMemento[] fDependencies;
+	private final Collection<String> fDependencies;
 	private final DocTrees fDocTrees;
+	private final InheritedDocumentation fDocumentation;
+	private final ExportedMembers fExportedMembers;
 
-	private final Collection<String> fDocumentationErrors = new ArrayList<>();
+	private final Map<String, Element> fDocumentationErrors = new LinkedHashMap<>();
 
-	/**
-	 * A scanner to display the structure of a series of elements
-	 * and their documentation comments.
-	 */
-	class ShowElements extends ElementScanner9<Void, Integer> {
-		final PrintStream out;
-		final DocTrees treeUtils;
-		final String kind;
-		final String name;
-		final String fieldName;
-		final int levelOfIndex;
-		final int levelPosition;
-
-		ShowElements(PrintStream out, DocTrees trees, String kind, String name, String fieldName,
-					 int levelOfIndex, int levelPosition) {
-			this.out = out;
-			this.treeUtils = trees;
-			this.kind = kind;
-			this.name = name;
-			this.fieldName = fieldName;
-			this.levelOfIndex = levelOfIndex;
-			this.levelPosition = levelPosition;
-		}
+	/** Page fragments of the current render mode. */
+	private PageTemplates fTemplates = PageTemplates.DEFAULT;
 
-		void show(Set<? extends Element> elements) {
-			scan(elements, 0);
-		}
+	/** Cache for rendered method and constant blocks, <code>null</code> to always render. */
+	private FragmentCache fFragmentCache = null;
 
-		@Override
-		public Void scan(Element e, Integer depth) {
-			DocCommentTree dcTree = treeUtils.getDocCommentTree(e);
-			if (dcTree != null && (kind == null || e.getKind().toString().equals(kind)) && (name == null || e.getSimpleName().toString().equals(name))) {
-				//out.println(e.getKind() + " " + e);
-				new ShowDocTrees(out, fieldName, levelOfIndex, levelPosition).scan(dcTree, depth + 1);
-			}
-			return super.scan(e, depth + 1);
-		}
-	}
+	/** Documentation errors of the fragment currently rendered, <code>null</code> when not rendering a cacheable fragment. */
+	private List<String> fFragmentErrors = null;
+
+	/** Store collecting method and constant blocks for help hovers, <code>null</code> to skip collecting. */
+	private HoverStoreWriter fHoverStore = null;
+	private String fModuleId = null;
 
 	/**
-	 * A scanner to display the structure of a documentation comment.
+	 * Constructor.
+	 *
+	 * @param clazz
+	 *            module class
+	 * @param linkProvider
+	 *            provider to resolve links
+	 * @param dependencies
+	 *            ids of modules this module depends on
+	 * @param docTrees
+	 *            doc comment access
+	 * @param documentation
+	 *            run-wide method documentation lookup
+	 * @param exportedMembers
+	 *            run-wide exported member lookup
 	 */
-	static class ShowDocTrees extends DocTreeScanner<Void, Integer> {
-		final PrintStream out;
-		final String kind;
-		final int levelToFind;
-		private static int currentIndex;
-		final int levelIndex;
-
-		ShowDocTrees(PrintStream out, String kind, int levelToFind, int levelIndex) {
-			this.out = out;
-			this.kind = kind;
-			this.levelToFind = levelToFind;
-			this.levelIndex = levelIndex;
-			currentIndex = 0;
-		}
-
-		@Override
-		public Void scan(DocTree t, Integer depth) {
-			if (t.getKind().toString().equals(kind)){
-				++currentIndex;
-			}
-			String indent = "  ".repeat(depth);
-			//if ( (kind == null || t.getKind().equals(kind)) && (name == null) )
-			//if (t.getKind().toString().equals(kind)) {
-			if ( (kind == null || t.getKind().toString().equals(kind)) &&
-					(levelToFind == -1 || levelToFind == depth) &&
-					(levelIndex == -1 || levelIndex == currentIndex)){
-				out.println(t.toString());
-			}
-			/*System.out.println(indent + depth + "# "
-					+ t.getKind() + " "
-					+ t.toString().replace("\n", "\n" + indent + "#    "));*/
-			return super.scan(t, depth + 1);
-		}
-	}
-
-	public HTMLWriter(final Element clazz, final LinkProvider linkProvider, final IMemento[] dependencies, final DocTrees docTrees) {
+	public HTMLWriter(final Element clazz, final LinkProvider linkProvider, final Collection<String> dependencies, final DocTrees docTrees,
+			final InheritedDocumentation documentation, final ExportedMembers exportedMembers) {
 		fClazz = clazz;
 		fLinkProvider = linkProvider;
 		fDependencies = dependencies;
 		fDocTrees = docTrees;
+		fDocumentation = documentation;
+		fExportedMembers = exportedMembers;
 	}
 
 	private String getFullCommend(final List<? extends DocTree> bodyItems)
@@ -168,70 +117,130 @@ public class HTMLWriter {
         return builder.toString();
     }
 
+	/**
+	 * Get the description of the module class.
+	 *
+	 * @return class comment, empty when the class has no Javadoc
+	 */
+	private String getClassComment() {
+		final DocCommentTree docComment = fDocTrees.getDocCommentTree(fClazz);
+		return (docComment != null) ? getFullCommend(docComment.getFullBody()) : "";
+	}
+
+	/**
+	 * Create the help page of the module.
+	 *
+	 * @param name
+	 *            module name
+	 * @return HTML content
+	 */
 	public String createContents(final String name) throws IOException {
-		final StringBuffer buffer = new StringBuffer();
+		final Utf8Buffer buffer = new Utf8Buffer();
+		writeContents(name, buffer);
+		return buffer.toString();
+	}
 
-		addLine(buffer, "<html>");
-		addLine(buffer, "<head>");
-		addLine(buffer, "	<meta http-equiv=\"Content-Type\" content=\"text/html; charset=utf-8\"/>");
-		addLine(buffer, "	<link rel=\"stylesheet\" type=\"text/css\" href=\"../../org.eclipse.ease.help/help/css/modules_reference.css\" />");
-		addLine(buffer, "</head>");
-		addLine(buffer, "<body>");
-		addText(buffer, "	<div class=\"module\" title=\"");
-		addText(buffer, name);
-		addLine(buffer, " Module\">");
+	/**
+	 * Render the help page of the module to a buffer. Static parts of the page are copied from pre-encoded templates, only dynamic content gets encoded.
+	 *
+	 * @param name
+	 *            module name
+	 * @param buffer
+	 *            buffer to append page content to
+	 */
+	public void writeContents(final String name, final Utf8Buffer buffer) throws IOException {
+		buffer.append(fTemplates.PAGE_START);
+		buffer.append(fTemplates.MODULE_START).append(name).append(fTemplates.MODULE_TITLE_END);
 
 		// header
-		addText(buffer, "		<h1>");
-		addText(buffer, name);
-		addLine(buffer, " Module</h1>");
+		buffer.append(fTemplates.MODULE_HEADER_START).append(name).append(fTemplates.MODULE_HEADER_END);
 
 		// class description
-		addText(buffer, "		<p class=\"description\">");
-
 		// TODO comment not available in ClassSymbol
-		final String classComment = getFullCommend(fDocTrees.getDocCommentTree(fClazz).getFullBody());
+		final String classComment = getClassComment();
 
-		if ((classComment != null) && (!classComment.isEmpty()))
-			addText(buffer, fLinkProvider.insertLinks(fClazz, classComment));
+		if ((classComment == null) || (classComment.isEmpty()))
+			addDocumentationError(fClazz, "Missing class comment for " + fClazz.getSimpleName());
 
-		else
-			addDocumentationError("Missing class comment for " + fClazz.getSimpleName());
+		if ((classComment != null) && (!classComment.isEmpty())) {
+			buffer.append(fTemplates.MODULE_DESCRIPTION_START);
+			buffer.append(fLinkProvider.insertLinks(fClazz, classComment));
+			buffer.append(fTemplates.PARAGRAPH_END);
 
-		addLine(buffer, "</p>");
+		} else if (!fTemplates.fMinified)
+			buffer.append(fTemplates.MODULE_DESCRIPTION_START).append(fTemplates.PARAGRAPH_END);
 
 		// dependencies
-		addLine(buffer, createDependenciesSection());
+		buffer.append(createDependenciesSection()).append(fTemplates.LINE_DELIMITER);
 
 		// end title div
-		addLine(buffer, "	</div>");
+		buffer.append(fTemplates.MODULE_END);
 
 		// constants
-		addLine(buffer, createConstantsSection());
+		writeConstantsSection(buffer);
+		buffer.append(fTemplates.LINE_DELIMITER);
 
 		// function overview
-		addLine(buffer, createOverviewSection());
+		writeOverviewSection(buffer);
+		buffer.append(fTemplates.LINE_DELIMITER);
 
 		// function details
-		addLine(buffer, createDetailSection());
+		writeDetailSection(buffer);
+		buffer.append(fTemplates.LINE_DELIMITER);
+
+		buffer.append(fTemplates.PAGE_END);
+	}
+
+	/**
+	 * Run the documentation checks of {@link #writeContents(String, Utf8Buffer)} without rendering the page. Reports the same documentation errors. As page
+	 * templates are static, only the returned documentation content needs to be validated for well formed markup.
+	 *
+	 * @return documented element -&gt; documentation content as inserted into the page, in page order
+	 */
+	public List<Map.Entry<Element, String>> checkContents() {
+		final List<Map.Entry<Element, String>> content = new ArrayList<>();
 
-		addLine(buffer, "</body>");
-		addLine(buffer, "</html>");
+		final String classComment = getClassComment();
+		if (classComment.isEmpty())
+			addDocumentationError(fClazz, "Missing class comment for " + fClazz.getSimpleName());
+		else
+			addCheckContent(content, fClazz, classComment);
 
-		return buffer.toString();
+		for (final VariableElement field : getExportedFields())
+			addCheckContent(content, field, getFieldComment(field));
+
+		for (final ExecutableElement method : getExportedMethods()) {
+			addCheckContent(content, method, getMethodComment(fClazz, method));
+
+			for (int index = 0; index < method.getParameters().size(); index++)
+				addCheckContent(content, method, getParameterComment(method, index));
+
+			if (!"void".equals(method.getReturnType().toString()))
+				addCheckContent(content, method, getReturnComment(method));
+
+			for (final TypeMirror exceptionType : method.getThrownTypes())
+				addCheckContent(content, method, getExceptionComment(method, exceptionType));
+		}
+
+		return content;
+	}
+
+	private void addCheckContent(final List<Map.Entry<Element, String>> content, final Element element, final String comment) {
+		if (!comment.isEmpty())
+			content.add(new AbstractMap.SimpleEntry<>(element, fLinkProvider.insertLinks(fClazz, comment)));
 	}
 
 	private String createDependenciesSection() {
 
-		if (fDependencies.length > 0) {
+		if (!fDependencies.isEmpty()) {
 
 			final StringBuffer buffer = new StringBuffer();
 			addLine(buffer, "\t<h3>Dependencies</h3>");
 			addLine(buffer, "\t<p>This module depends on following other modules which will automatically be loaded.</p>");
 			addLine(buffer, "\t<ul class=\"dependency\">");
 
-			for (final IMemento dependency : fDependencies)
-				addLine(buffer, "\t\t<li>{@module " + dependency.getString("module") + "}</li>");
+			for (final String dependency : fDependencies)
+				addLine(buffer, "\t\t<li>{@module " + dependency + "}</li>");
 
 			addLine(buffer, "\t</ul>");
 
@@ -241,54 +250,140 @@ public class HTMLWriter {
 		return "";
 	}
 
-	private Object createDetailSection() throws IOException {
-		final StringBuffer buffer = new StringBuffer();
+	private void writeDetailSection(final Utf8Buffer buffer) throws IOException {
+		if ((fTemplates.fMinified) && (getExportedMethods().isEmpty()))
+			return;
 
-		addLine(buffer, "\t<h2>Methods</h2>");
+		buffer.append(fTemplates.METHODS_START);
 
 		for (final ExecutableElement method : getExportedMethods()) {
-			// heading
-			addText(buffer, "\t<div class=\"command");
-			if (isDeprecated(method))
-				addText(buffer, " deprecated");
-			addText(buffer, "\" data-method=\"");
-			addText(buffer, method.getSimpleName());
-			addLine(buffer, "\">");
+			final int start = buffer.length();
+			writeFragment(buffer, method, (fFragmentCache != null) ? getFragmentKey(method) : null, target -> writeMethod(target, method));
+
+			if (fHoverStore != null)
+				fHoverStore.put(fModuleId, method.getSimpleName().toString(), getFunctionAliases(method), buffer.getData(), start, buffer.length());
+		}
+	}
 
-			addLine(buffer,
-					"\t\t<h3" + (isDeprecated(method) ? " class=\"deprecatedText\"" : "") + "><a id=\"" + method.getSimpleName() + "\">" + method.getSimpleName() + "</a></h3>");
+	/**
+	 * Write a fragment from the cache or render it. Freshly rendered fragments are stored in the cache together with the documentation errors reported and
+	 * the modules linked for them, so cache hits report the same errors and module links.
+	 *
+	 * @param element
+	 *            documented element, location of cached documentation errors
+	 * @param key
+	 *            cache key, <code>null</code> to render without cache
+	 */
+	private void writeFragment(final Utf8Buffer buffer, final Element element, final String key, final FragmentRenderer renderer) throws IOException {
+		if (key == null) {
+			renderer.render(buffer);
+			return;
+		}
 
-			// synopsis
-			addLine(buffer, createSynopsis(method));
+		final Collection<String> moduleLinks = fLinkProvider.getRecordedModuleLinks();
 
-			// main description
-			addLine(buffer, "\t\t<p class=\"description\">" + fLinkProvider.insertLinks(fClazz, getMethodComment(fClazz, method)) + "</p>");
+		final FragmentCache.Fragment fragment = fFragmentCache.get(key);
+		if (fragment != null) {
+			buffer.append(fragment.getContent());
+			for (final String error : fragment.getErrors())
+				addDocumentationError(element, error);
 
-			if (isDeprecated(method)) {
-				String deprecationText = "This method is deprecated and might be removed in future versions.";
+			if (moduleLinks != null)
+				moduleLinks.addAll(fragment.getModuleLinks());
 
-				addLine(buffer, "\t\t<p class=\"warning\"><b>Deprecation warning:</b> " + fLinkProvider.insertLinks(fClazz, deprecationText) + "</p>");
-			}
+			return;
+		}
 
-			// aliases
-			addLine(buffer, createAliases(method));
+		final int start = buffer.length();
+		final Set<String> fragmentLinks = new TreeSet<>();
+		fFragmentErrors = new ArrayList<>();
+		fLinkProvider.recordModuleLinks(fragmentLinks);
+		try {
+			renderer.render(buffer);
+			fFragmentCache.put(key, Arrays.copyOfRange(buffer.getData(), start, buffer.length()), fFragmentErrors, fragmentLinks);
+		} finally {
+			fFragmentErrors = null;
+			fLinkProvider.recordModuleLinks(moduleLinks);
+		}
+
+		if (moduleLinks != null)
+			moduleLinks.addAll(fragmentLinks);
+	}
+
+	/**
+	 * Create the cache key of a method block from everything the rendered block depends on.
+	 */
+	private String getFragmentKey(final ExecutableElement method) {
+		final StringBuilder inputs = new StringBuilder(fTemplates.fMinified ? "method minified\n" : "method\n");
+		inputs.append(fClazz).append('\n');
+		inputs.append(method.getReturnType()).append(' ').append(method).append('\n');
+		for (final VariableElement parameter : method.getParameters())
+			inputs.append(parameter.getSimpleName()).append(' ').append(parameter.getAnnotationMirrors()).append('\n');
+
+		inputs.append(method.getAnnotationMirrors()).append('\n');
+		inputs.append(method.getThrownTypes()).append('\n');
+		inputs.append(fDocumentation.getCommentSource(method)).append('\n');
+		inputs.append(fLinkProvider.getFingerprint());
 
-			// parameters
-			addLine(buffer, createParametersArea(method));
+		return fFragmentCache.createKey(inputs);
+	}
 
-			// return value
-			addLine(buffer, createReturnValueArea(method));
+	/**
+	 * Create the cache key of a constant row from everything the rendered row depends on.
+	 */
+	private String getFragmentKey(final VariableElement field) {
+		final StringBuilder inputs = new StringBuilder(fTemplates.fMinified ? "field minified\n" : "field\n");
+		inputs.append(fClazz).append('\n');
+		inputs.append(field.getSimpleName()).append('\n');
+		inputs.append(field.getAnnotationMirrors()).append('\n');
+		inputs.append(fDocumentation.getCommentSource(field)).append('\n');
+		inputs.append(fLinkProvider.getFingerprint());
 
-			// declared exceptions
-			addLine(buffer, createExceptionArea(method));
+		return fFragmentCache.createKey(inputs);
+	}
 
-			// examples
-			addLine(buffer, createExampleArea(method));
+	private void writeMethod(final Utf8Buffer buffer, final ExecutableElement method) throws IOException {
+		// heading
+		buffer.append(fTemplates.METHOD_START);
+		if (isDeprecated(method))
+			buffer.append(fTemplates.METHOD_DEPRECATED);
+		buffer.append(fTemplates.METHOD_DATA_START).append(method.getSimpleName()).append(fTemplates.TAG_END);
 
-			addLine(buffer, "\t</div>");
+		buffer.append(isDeprecated(method) ? fTemplates.METHOD_DEPRECATED_HEADER_START : fTemplates.METHOD_HEADER_START);
+		buffer.append(fTemplates.ANCHOR_START).append(method.getSimpleName()).append(fTemplates.ATTRIBUTE_END).append(method.getSimpleName())
+				.append(fTemplates.METHOD_HEADER_END);
+
+		// synopsis
+		buffer.append(createSynopsis(method)).append(fTemplates.LINE_DELIMITER);
+
+		// main description
+		final String description = getMethodComment(fClazz, method);
+		if ((!description.isEmpty()) || (!fTemplates.fMinified))
+			buffer.append(fTemplates.METHOD_DESCRIPTION_START).append(fLinkProvider.insertLinks(fClazz, description)).append(fTemplates.PARAGRAPH_END);
+
+		if (isDeprecated(method)) {
+			String deprecationText = "This method is deprecated and might be removed in future versions.";
+
+			buffer.append(format("\t\t<p class=\"warning\"><b>Deprecation warning:</b> " + fLinkProvider.insertLinks(fClazz, deprecationText) + "</p>"))
+					.append(fTemplates.LINE_DELIMITER);
 		}
 
-		return buffer;
+		// aliases
+		buffer.append(createAliases(method)).append(fTemplates.LINE_DELIMITER);
+
+		// parameters
+		buffer.append(createParametersArea(method)).append(fTemplates.LINE_DELIMITER);
+
+		// return value
+		buffer.append(createReturnValueArea(method)).append(fTemplates.LINE_DELIMITER);
+
+		// declared exceptions
+		buffer.append(createExceptionArea(method)).append(fTemplates.LINE_DELIMITER);
+
+		// examples
+		buffer.append(createExampleArea(method)).append(fTemplates.LINE_DELIMITER);
+
+		buffer.append(fTemplates.METHOD_END);
 	}
 
 	private StringBuffer createExampleArea(final ExecutableElement method) {
@@ -331,37 +426,17 @@ public class HTMLWriter {
 		return buffer;
 	}
 
-	private StringBuffer createReturnValueArea(final ExecutableElement method) throws IOException {
+	private StringBuffer createReturnValueArea(final ExecutableElement method) {
 		final StringBuffer buffer = new StringBuffer();
 
-		if (!"void".equals(method.getReturnType().toString())){
-			addText(buffer, "		<p class=\"return\">");
-
-			/*final DocTree[] tags = // method.tags("return");
-			if (tags.length > 0) {
-				if (tags[0].text().isEmpty())
-					addDocumentationError("Missing return statement documentation for " + method.containingClass().name() + "." + method.name() + "()");
-
-			}*/
+		if (!"void".equals(method.getReturnType().toString())) {
+			final String returnComment = getReturnComment(method);
+			if ((!returnComment.isEmpty()) || (!fTemplates.fMinified)) {
+				addText(buffer, "		<p class=\"return\">");
 
-			final Charset charset = StandardCharsets.UTF_8;
-			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-			PrintStream printStream = new PrintStream(byteArrayOutputStream, true, charset.name());
-			ShowElements showElements = new ShowElements(printStream, fDocTrees, ElementKind.METHOD.toString(), method.getSimpleName().toString(), "RETURN", 3, -1);
-			showElements.scan(fClazz,0 );
-			String comment = new String(byteArrayOutputStream.toByteArray());
-			printStream.close();
-			byteArrayOutputStream.close();
-
-			final String prefix = "@return ";
-			if ( comment.startsWith(prefix) ){
-				comment = comment.substring(prefix.length());
+				addText(buffer, fLinkProvider.insertLinks(fClazz, returnComment));
+				addLine(buffer, "</p>");
 			}
-			addLine(buffer, comment);
-
-			//addText(buffer, fLinkProvider.insertLinks(fClazz, method.getReturnType().toString()));
-
-			addLine(buffer, "</p>");
 		}
 
 		return buffer;
@@ -374,7 +449,7 @@ public class HTMLWriter {
 
 			addLine(buffer, "		<dl class=\"parameters\">");
 
-			int currentParameter = 1;
+			int currentParameter = 0;
 			for (final VariableElement parameter : method.getParameters()) {
 				addLine(buffer, "			<dt>" + parameter.getSimpleName() + "</dt>");
 				addText(buffer, "			<dd class=\"description\" data-parameter=\"" + parameter.getSimpleName() + "\">"
@@ -413,41 +488,43 @@ public class HTMLWriter {
 	private StringBuffer createExceptionArea(final ExecutableElement method) {
 		final StringBuffer buffer = new StringBuffer();
 
-		/*if (!method.getThrownTypes().isEmpty()) {
+		if (!method.getThrownTypes().isEmpty()) {
 
 			addLine(buffer, "		<dl class=\"exceptions\">");
 
-			for (final Type exceptionType : method.thrownExceptionTypes()) {
-				addLine(buffer, "			<dt>" + exceptionType.simpleTypeName() + "</dt>");
-				addText(buffer, "			<dd class=\"description\" data-exception=\"" + exceptionType.simpleTypeName() + "\">"
+			for (final TypeMirror exceptionType : method.getThrownTypes()) {
+				final String qualifiedName = exceptionType.toString();
+				final String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+
+				addLine(buffer, "			<dt>" + simpleName + "</dt>");
+				addText(buffer, "			<dd class=\"description\" data-exception=\"" + simpleName + "\">"
 						+ fLinkProvider.insertLinks(fClazz, getExceptionComment(method, exceptionType)));
 
 				addLine(buffer, "</dd>");
 			}
 
 			addLine(buffer, "		</dl>");
-		}*/
+		}
 
 		return buffer;
 	}
 
-	private String getExceptionComment(ExecutableElement method, Type exceptionType) {
-		/*final String comment = extractComment(method, method1 -> {
+	private String getReturnComment(final ExecutableElement method) {
+		final String comment = fDocumentation.getReturnComment(method);
 
-			for (final ThrowsTree tag : method1.throwsTags()) {
-				if ((exceptionType.simpleTypeName().equals(tag.exceptionName())) || (exceptionType.typeName().equals(tag.exceptionName())))
-					return tag.exceptionComment();
-			}
+		if (comment.isEmpty())
+			addDocumentationError(method, "Missing return statement documentation for " + fClazz.getSimpleName() + "." + method.getSimpleName() + "()");
+
+		return comment;
+	}
 
-			return "";
-		});
+	private String getExceptionComment(final ExecutableElement method, final TypeMirror exceptionType) {
+		final String comment = fDocumentation.getThrowsComment(method, exceptionType);
 
 		if (comment.isEmpty())
-			addDocumentationError(
-					"Missing exception documentation for " + method.containingClass().name() + "." + method.name() + "() - " + exceptionType.simpleTypeName());
+			addDocumentationError(method, "Missing exception documentation for " + fClazz.getSimpleName() + "." + method.getSimpleName() + "() - " + exceptionType);
 
-		return comment;*/
-		return "";
+		return comment;
 	}
 
 	private StringBuffer createAliases(final ExecutableElement method) {
@@ -508,16 +585,7 @@ public class HTMLWriter {
 		return buffer;
 	}
 
-	private StringBuffer createOverviewSection() throws IOException {
-		final StringBuffer buffer = new StringBuffer();
-
-		addLine(buffer, "	<h2>Method Overview</h2>");
-		addLine(buffer, "	<table class=\"functions\">");
-		addLine(buffer, "		<tr>");
-		addLine(buffer, "			<th>Method</th>");
-		addLine(buffer, "			<th>Description</th>");
-		addLine(buffer, "		</tr>");
-
+	private void writeOverviewSection(final Utf8Buffer buffer) throws IOException {
 		final List<Overview> overview = new ArrayList<>();
 
 		for (final ExecutableElement method : getExportedMethods()) {
@@ -529,130 +597,138 @@ public class HTMLWriter {
 
 		Collections.sort(overview);
 
+		if ((fTemplates.fMinified) && (overview.isEmpty()))
+			return;
+
+		buffer.append(fTemplates.OVERVIEW_START);
+
 		for (final Overview entry : overview) {
-			addLine(buffer, "		<tr>");
+			buffer.append(fTemplates.ROW_START);
 			if (!entry.fDeprecated) {
-				addLine(buffer, "			<td><a href=\"#" + entry.fLinkID + "\">" + entry.fTitle + "</a>()</td>");
-				addLine(buffer, "			<td>" + fLinkProvider.insertLinks(fClazz, getFirstSentence(entry.fDescription)) + "</td>");
+				buffer.append(fTemplates.OVERVIEW_LINK_START).append(entry.fLinkID).append(fTemplates.ATTRIBUTE_END).append(entry.fTitle)
+						.append(fTemplates.OVERVIEW_LINK_END);
+				buffer.append(fTemplates.OVERVIEW_DESCRIPTION_START).append(fLinkProvider.insertLinks(fClazz, getFirstSentence(entry.fDescription)))
+						.append(fTemplates.CELL_END);
 
 			} else {
-				addLine(buffer, "			<td class=\"deprecatedText\"><a href=\"#" + entry.fLinkID + "\">" + entry.fTitle + "</a>()</td>");
-				addLine(buffer, "			<td class=\"deprecatedDescription\"><b>Deprecated:</b> "
-						+ fLinkProvider.insertLinks(fClazz, getFirstSentence(entry.fDescription)) + "</td>");
+				buffer.append(fTemplates.OVERVIEW_DEPRECATED_LINK_START).append(entry.fLinkID).append(fTemplates.ATTRIBUTE_END).append(entry.fTitle)
+						.append(fTemplates.OVERVIEW_LINK_END);
+				buffer.append(fTemplates.OVERVIEW_DEPRECATED_DESCRIPTION_START)
+						.append(fLinkProvider.insertLinks(fClazz, getFirstSentence(entry.fDescription))).append(fTemplates.CELL_END);
 			}
-			addLine(buffer, "		</tr>");
+			buffer.append(fTemplates.ROW_END);
 		}
 
-		addLine(buffer, "	</table>");
-		addLine(buffer, "");
-
-		return buffer;
+		buffer.append(fTemplates.TABLE_END);
 	}
 
-	private String getMethodComment(Element baseClass, ExecutableElement method) throws IOException {
-		final Charset charset = StandardCharsets.UTF_8;
-		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-		PrintStream printStream = new PrintStream(byteArrayOutputStream, true, charset.name());
-		ShowElements showElements = new ShowElements(printStream, fDocTrees, ElementKind.METHOD.toString(), method.getSimpleName().toString(), "TEXT", 3, -1);
-		showElements.scan(fClazz,0 );
-		String comment = new String(byteArrayOutputStream.toByteArray());
-		printStream.close();
-		byteArrayOutputStream.close();
+	private String getMethodComment(final Element baseClass, final ExecutableElement method) {
+		final String comment = fDocumentation.getComment(method);
 
 		if (comment.isEmpty())
-			addDocumentationError("Missing comment for " + baseClass.getSimpleName() + "." + method.getSimpleName() + "()");
+			addDocumentationError(method, "Missing comment for " + baseClass.getSimpleName() + "." + method.getSimpleName() + "()");
 
 		return comment;
 	}
 
-	private StringBuffer createConstantsSection() throws IOException {
-		final StringBuffer buffer = new StringBuffer();
-
-		final List<Element> fields = getExportedFields();
+	private void writeConstantsSection(final Utf8Buffer buffer) throws IOException {
+		final List<VariableElement> fields = getExportedFields();
 		if (!fields.isEmpty()) {
-			addLine(buffer, "");
-			addLine(buffer, "	<h2>Constants</h2>");
-			addLine(buffer, "	<table class=\"constants\">");
-			addLine(buffer, "		<tr>");
-			addLine(buffer, "			<th>Constant</th>");
-			addLine(buffer, "			<th>Description</th>");
-			addLine(buffer, "		</tr>");
-
-			for (final Element field : fields) {
-				addLine(buffer, "\t\t<tr>");
-
-				final Charset charset = StandardCharsets.UTF_8;
-				ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-				PrintStream printStream = new PrintStream(byteArrayOutputStream, true, charset.name());
-				ShowElements showElements = new ShowElements(printStream, fDocTrees, ElementKind.FIELD.toString(), field.getSimpleName().toString(), "DOC_COMMENT", -1, -1);
-				showElements.scan(fClazz,0 );
-
-				String content = new String(byteArrayOutputStream.toByteArray());
-				printStream.close();
-				byteArrayOutputStream.close();
-
-				// TODO SAUL
-				if (content.isEmpty())
-					addDocumentationError("Field domentation missing for " + fClazz.getSimpleName() + "." + field.getSimpleName());
-
-				if (!isDeprecated(field)) {
-					addLine(buffer, "			<td><a id=\"" + field.getSimpleName() + "\">" + field.getSimpleName() + "</a></td>");
-					addLine(buffer, "			<td class=\"description\" data-field=\"" + field.getSimpleName() + "\">"
-							+ fLinkProvider.insertLinks(fClazz, content) + "</td>"); // TODO SAUL
-
-				} else {
-					addLine(buffer, "			<td><a id=\"" + field.getSimpleName() + "\" class=\"deprecatedText\">" + field.getSimpleName() + "</a></td>");
-					addText(buffer, "			<td>" + fLinkProvider.insertLinks(fClazz, "")); // TODO SAUL
-					String deprecationText = ""; //= field.tags("deprecated")[0].text();
-					if (deprecationText.isEmpty())
-						deprecationText = "This constant is deprecated and might be removed in future versions.";
-
-					addText(buffer, "				<div class=\"warning\"><b>Deprecation warning:</b> " + fLinkProvider.insertLinks(fClazz, deprecationText)
-							+ "</div>");
-					addLine(buffer, "</td>");
-				}
+			buffer.append(fTemplates.CONSTANTS_START);
 
-				addLine(buffer, "		</tr>");
+			for (final VariableElement field : fields) {
+				final int start = buffer.length();
+				writeFragment(buffer, field, (fFragmentCache != null) ? getFragmentKey(field) : null, target -> writeConstant(target, field));
+
+				if (fHoverStore != null)
+					addConstantHover(field, buffer, start);
 			}
 
-			addLine(buffer, "	</table>");
-			addLine(buffer, "");
+			buffer.append(fTemplates.TABLE_END);
 		}
+	}
 
-		return buffer;
+	/**
+	 * Store a constant row as hover fragment. Rows are wrapped in a table of their own to get a self contained fragment.
+	 */
+	private void addConstantHover(final VariableElement field, final Utf8Buffer buffer, final int start) {
+		final Utf8Buffer hover = new Utf8Buffer(buffer.length() - start + 64);
+		hover.append(fTemplates.CONSTANT_HOVER_START).append(buffer.getData(), start, buffer.length()).append(fTemplates.CONSTANT_HOVER_END);
+		fHoverStore.put(fModuleId, field.getSimpleName().toString(), Collections.emptyList(), hover.getData(), 0, hover.length());
+	}
+
+	private void writeConstant(final Utf8Buffer buffer, final VariableElement field) throws IOException {
+		buffer.append(fTemplates.ROW_START);
+
+		final String content = getFieldComment(field);
+
+		if (!isDeprecated(field)) {
+			buffer.append(fTemplates.CONSTANT_ANCHOR_START).append(field.getSimpleName()).append(fTemplates.ATTRIBUTE_END).append(field.getSimpleName())
+					.append("</a>").append(fTemplates.CELL_END);
+			buffer.append(fTemplates.CONSTANT_DESCRIPTION_START).append(field.getSimpleName()).append(fTemplates.ATTRIBUTE_END)
+					.append(fLinkProvider.insertLinks(fClazz, content)).append(fTemplates.CELL_END); // TODO SAUL
+
+		} else {
+			buffer.append(format("			<td><a id=\"" + field.getSimpleName() + "\" class=\"deprecatedText\">" + field.getSimpleName() + "</a></td>"))
+					.append(fTemplates.LINE_DELIMITER);
+			buffer.append(format("			<td>" + fLinkProvider.insertLinks(fClazz, ""))); // TODO SAUL
+			String deprecationText = ""; //= field.tags("deprecated")[0].text();
+			if (deprecationText.isEmpty())
+				deprecationText = "This constant is deprecated and might be removed in future versions.";
+
+			buffer.append(format("				<div class=\"warning\"><b>Deprecation warning:</b> " + fLinkProvider.insertLinks(fClazz, deprecationText)
+					+ "</div>"));
+			buffer.append(fTemplates.CELL_END);
+		}
+
+		buffer.append(fTemplates.ROW_END);
 	}
 
-	private Collection<String> getFunctionAliases(final ExecutableElement method) {
-		final Collection<String> aliases = new HashSet<>();
-		/*final AnnotationMirror annotation = getWrapAnnotation(method);
-		if (annotation != null) {
-			for (final AnnotationValue pair : annotation.elementValues()) {
-				if ("alias".equals(pair.element().name())) {
-					String candidates = pair.value().toString();
-					candidates = candidates.substring(1, candidates.length() - 1);
-					for (final String token : candidates.split("[,;]")) {
-						if (!token.trim().isEmpty())
-							aliases.add(token.trim());
-					}
-				}
-			}
-		}*/
+	private String getFieldComment(final VariableElement field) {
+		final String comment = fDocumentation.getComment(field);
+
+		if (comment.isEmpty())
+			addDocumentationError(field, "Field domentation missing for " + fClazz.getSimpleName() + "." + field.getSimpleName());
+
+		return comment;
+	}
 
-		return aliases;
+	private Collection<String> getFunctionAliases(final ExecutableElement method) {
+		return fExportedMembers.getAliases(method);
 	}
 
 	private static String getFirstSentence(final String description) {
-		final int pos = description.indexOf('.');
+		// ignore dots within inline tags like {@link java.io.File}
+		int depth = 0;
+		for (int pos = 0; pos < description.length(); pos++) {
+			final char c = description.charAt(pos);
+			if (c == '{')
+				depth++;
+			else if ((c == '}') && (depth > 0))
+				depth--;
+			else if ((c == '.') && (depth == 0) && (pos > 0)
+					&& ((pos + 1 == description.length()) || (Character.isWhitespace(description.charAt(pos + 1)))))
+				return description.substring(0, pos + 1);
+		}
 
-		return (pos > 0) ? description.substring(0, pos + 1) : description;
+		return description;
 	}
 
-	private static void addText(final StringBuffer buffer, final Object text) {
-		buffer.append(text);
+	private void addText(final StringBuffer buffer, final Object text) {
+		buffer.append(format(text));
 	}
 
-	private static void addLine(final StringBuffer buffer, final Object text) {
-		buffer.append(text).append(LINE_DELIMITER);
+	private void addLine(final StringBuffer buffer, final Object text) {
+		buffer.append(format(text));
+		if (!fTemplates.fMinified)
+			buffer.append(LINE_DELIMITER);
+	}
+
+	/**
+	 * Remove the indentation of markup starting a line when rendering minified pages.
+	 */
+	private Object format(final Object markup) {
+		return (fTemplates.fMinified) ? PageTemplates.removeIndentation(String.valueOf(markup)) : markup;
 	}
 
 	private static boolean isDeprecated(final ExecutableElement method) {
@@ -683,167 +759,87 @@ public class HTMLWriter {
 	}
 
 	private String getParameterComment(final ExecutableElement method, final int index) {
-		String comment = "";
-		try {
-			final Charset charset = StandardCharsets.UTF_8;
-			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-			PrintStream printStream = new PrintStream(byteArrayOutputStream, true, charset.name());
-
-			ShowElements showElements = new ShowElements(printStream, fDocTrees, ElementKind.METHOD.toString(), method.getSimpleName().toString(), "PARAM", 3, index);
-			showElements.scan(fClazz,0 );
+		final String comment = fDocumentation.getParameterComment(method, index);
 
-			comment = new String(byteArrayOutputStream.toByteArray());
-			final String prefix = "@param ";
-			if ( comment.startsWith(prefix) ){
-				comment.substring(prefix.length());
-			}
-			final int firstWord = comment.indexOf(' ');
-			if (firstWord >= 0){
-				comment = comment.substring(firstWord);
-			}
-			printStream.close();
-			byteArrayOutputStream.close();
+		if (comment.isEmpty())
+			addDocumentationError(method, "Missing parameter documentation for " + fClazz.getSimpleName() + "." + method.getSimpleName() + "() - "
+					+ method.getParameters().get(index).getSimpleName());
 
-		} catch (UnsupportedEncodingException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
 		return comment;
 	}
 
-	private String extractComment(ExecutableElement method, CommentExtractor extractor) {
-		String comment = extractor.extract(method);
-		if ((comment != null) && (!comment.isEmpty()))
-			return comment;
-
-		// try to look up interfaces
-		/*for (final TypeElement iface : method.containingClass().interfaces()) {
-			for (final ExecutableElement ifaceMethod : iface.methods()) {
-				if (method.overrides(ifaceMethod)) {
-					comment = extractComment(ifaceMethod, extractor);
-					if ((comment != null) && (!comment.isEmpty()))
-						return comment;
-				}
-			}
-		}
-
-		// not found, retry with super class
-		final TypeElement parent = method.containingClass().superclass();
-		if (parent != null) {
-			for (final ExecutableElement superMethod : parent.methods()) {
-				if (method.overrides(superMethod))
-					return (extractComment(superMethod, extractor));
-			}
-		}*/
-
-		return "";
-	}
-
 	private List<ExecutableElement> getExportedMethods() {
-		final List<ExecutableElement> methods = new ArrayList<>();
-		final boolean hasAnnotation = hasWrapToScriptAnnotation(fClazz);
-
-		Element clazzDoc = fClazz;
-		while ((clazzDoc != null) && (!Object.class.getName().equals(clazzDoc.getSimpleName()))) {
-			for (final Element method : clazzDoc.getEnclosedElements()) {
-				if ( ElementKind.METHOD.equals(method.getKind()) )
-				{
-					ExecutableElement executableElement = (ExecutableElement) method;
-					if ((!hasAnnotation) || (getWrapAnnotation(method) != null))
-						methods.add(executableElement);
-				}
-			}
-
-			// TODO SAUL
-			clazzDoc = null;
-			//clazzDoc = clazzDoc.superclass();
-		}
-
-		// sort methods alphabetically
-		Collections.sort(methods, Comparator.comparing(o -> o.getSimpleName().toString()));
-
-		return methods;
+		return fExportedMembers.getExportedMethods((TypeElement) fClazz);
 	}
 
-	private List<Element> getExportedFields() {
-		final List<Element> fields = new ArrayList<>();
-
-		final boolean hasAnnotation = hasWrapToScriptAnnotation(fClazz);
-
-		final ArrayList<Element> candidates = new ArrayList<>();
-		candidates.add(fClazz);
-		while (!candidates.isEmpty()) {
-			final Element clazzDoc = candidates.remove(0);
-
-			for ( Element element : clazzDoc.getEnclosedElements() ){
-				if ( ElementKind.FIELD.equals(element.getKind()) &&
-						(!hasAnnotation || (getWrapAnnotation(element) != null))){
-					fields.add(element);
-				}
-
-				// add interfaces
-				if ( ElementKind.INTERFACE.equals(element.getKind()) )
-				{
-					candidates.add(element);
-				}
-
-				// TODO SAUL
-				/*final ClassDoc nextCandidate = clazzDoc.superclass();
-				if ((nextCandidate != null) && (!Object.class.getName().equals(nextCandidate.qualifiedName())))
-					candidates.add(nextCandidate);*/
-			}
-		}
-
-		// sort fields alphabetically
-		Collections.sort(fields, Comparator.comparing(o -> o.getSimpleName().toString()));
-
-		return fields;
+	private List<VariableElement> getExportedFields() {
+		return fExportedMembers.getExportedFields((TypeElement) fClazz);
 	}
 
-	private static boolean hasWrapToScriptAnnotation(Element clazzDoc) {
-		while (clazzDoc != null) {
-			final List<? extends Element> enclosedElements = clazzDoc.getEnclosedElements();
-			for ( Element element : enclosedElements ){
-				if (ElementKind.METHOD.equals(element.getKind()) ||
-				    ElementKind.FIELD.equals(element.getKind())){
-					if (getWrapAnnotation(element) != null){
-						return true;
-					}
-				}
-			}
-
-			// TODO SAUL
-			clazzDoc = null;
-			//clazzDoc = clazzDoc.superclass();
-		}
-
-		return false;
+	public static String escapeText(String text) {
+		return text.replaceAll("&", "&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;");
 	}
 
-	private static AnnotationMirror getWrapAnnotation(final Element method) {
-		for (final AnnotationMirror annotation : method.getAnnotationMirrors()) {
-			if (isWrapToScriptAnnotation(annotation))
-				return annotation;
-		}
+	/**
+	 * Get the amount of methods exported to scripts by this module.
+	 *
+	 * @return exported method count
+	 */
+	public int getExportedMethodCount() {
+		return getExportedMethods().size();
+	}
 
-		return null;
+	/**
+	 * Set a cache for rendered method and constant blocks.
+	 *
+	 * @param fragmentCache
+	 *            cache to use, <code>null</code> to always render
+	 */
+	public void setFragmentCache(final FragmentCache fragmentCache) {
+		fFragmentCache = fragmentCache;
 	}
 
-	private static boolean isWrapToScriptAnnotation(final AnnotationMirror annotation) {
-		return (QUALIFIED_WRAP_TO_SCRIPT.equals(annotation.getAnnotationType().toString()))
-				|| (WRAP_TO_SCRIPT.equals(annotation.getAnnotationType().toString()));
+	/**
+	 * Collect rendered method and constant blocks for help hovers.
+	 *
+	 * @param hoverStore
+	 *            store to add fragments to, <code>null</code> to skip collecting
+	 * @param moduleId
+	 *            id of the rendered module
+	 */
+	void setHoverStore(final HoverStoreWriter hoverStore, final String moduleId) {
+		fHoverStore = hoverStore;
+		fModuleId = moduleId;
 	}
 
-	public static String escapeText(String text) {
-		return text.replaceAll("&", "&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;");
+	/**
+	 * Select the render mode. Minified pages omit indentation, line delimiters and empty containers like paragraphs without documentation. All element ids,
+	 * classes and data attributes are kept.
+	 *
+	 * @param minify
+	 *            <code>true</code> to render minified pages
+	 */
+	public void setMinify(final boolean minify) {
+		fTemplates = minify ? PageTemplates.MINIFIED : PageTemplates.DEFAULT;
 	}
 
 	public Collection<String> getDocumentationErrors() {
+		return fDocumentationErrors.keySet();
+	}
+
+	/**
+	 * Get documentation errors together with the element they were reported for.
+	 *
+	 * @return error message -&gt; documented element
+	 */
+	public Map<String, Element> getDocumentationErrorLocations() {
 		return fDocumentationErrors;
 	}
 
-	private void addDocumentationError(String message) {
-		fDocumentationErrors.add(message);
+	private void addDocumentationError(final Element element, final String message) {
+		fDocumentationErrors.putIfAbsent(message, element);
+
+		if (fFragmentErrors != null)
+			fFragmentErrors.add(message);
 	}
 }
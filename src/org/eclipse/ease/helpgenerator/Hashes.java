@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 digests and their hex encoding, used for signatures, stamps, fingerprints and cache keys.
+ */
+final class Hashes {
+
+	private Hashes() {
+		// utility class
+	}
+
+	/**
+	 * Create a SHA-256 digest.
+	 *
+	 * @return new digest instance
+	 */
+	static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+
+		} catch (final NoSuchAlgorithmException e) {
+			// SHA-256 is mandatory on every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Encode a hash as lower case hex string.
+	 *
+	 * @param hash
+	 *            hash bytes
+	 * @return hex encoded hash
+	 */
+	static String toHex(final byte[] hash) {
+		return toHex(hash, hash.length);
+	}
+
+	/**
+	 * Encode the leading bytes of a hash as lower case hex string.
+	 *
+	 * @param hash
+	 *            hash bytes
+	 * @param length
+	 *            amount of bytes to encode
+	 * @return hex encoded hash with <i>2 * length</i> characters
+	 */
+	static String toHex(final byte[] hash, final int length) {
+		final StringBuilder hex = new StringBuilder(length * 2);
+		for (int index = 0; index < length; index++)
+			hex.append(Character.forDigit((hash[index] >> 4) & 0xF, 16)).append(Character.forDigit(hash[index] & 0xF, 16));
+
+		return hex.toString();
+	}
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams all help content into a single archive (eg <i>doc.zip</i>) instead of writing individual files. Eclipse help resolves topics from such an archive
+ * located in the plugin root. Entries are stored below <i>help/</i>, so links and TOC locations stay the same as for folder based output.
+ * <p>
+ * Entries are written in the order they are passed to {@link #write(String, String)} with a fixed timestamp. When the resulting entries match the previous
+ * archive (same names, order and checksums) the previous archive is kept untouched.
+ * </p>
+ * <p>
+ * Content is streamed to a temporary file, which replaces the archive only when the output is committed. Failed runs leave the previous archive in place.
+ * </p>
+ */
+public class HelpArchiveOutput implements IHelpOutput {
+
+	/** Fixed entry timestamp to get reproducible archives (2000-01-01 00:00:00 UTC). */
+	private static final long ENTRY_TIME = 946684800000L;
+
+	private static final String ENTRY_PREFIX = "help/";
+
+	private final File fArchiveFile;
+	private final File fTempFile;
+	private final ZipOutputStream fOutput;
+
+	/** Maps entry name -> CRC32 of written content. */
+	private final Map<String, Long> fEntries = new LinkedHashMap<>();
+
+	private final CRC32 fChecksum = new CRC32();
+
+	private boolean fCommitted = false;
+
+	public HelpArchiveOutput(final File archiveFile) throws IOException {
+		fArchiveFile = archiveFile;
+		fTempFile = new File(archiveFile.getPath() + ".tmp");
+
+		if (!fTempFile.getParentFile().exists())
+			fTempFile.getParentFile().mkdirs();
+
+		fOutput = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(fTempFile), 64 * 1024));
+	}
+
+	@Override
+	public void write(final String name, final String data) throws IOException {
+		final byte[] content = data.getBytes(StandardCharsets.UTF_8);
+		writeEntry(name, content, content.length);
+	}
+
+	@Override
+	public void write(final String name, final Utf8Buffer data) throws IOException {
+		writeEntry(name, data.getData(), data.length());
+	}
+
+	private void writeEntry(final String name, final byte[] content, final int length) throws IOException {
+		final GeneratorEvents.FileWriteEvent event = new GeneratorEvents.FileWriteEvent();
+		event.begin();
+
+		final String entryName = ENTRY_PREFIX + name;
+
+		fChecksum.reset();
+		fChecksum.update(content, 0, length);
+		final long checksum = fChecksum.getValue();
+
+		if (fEntries.containsKey(entryName)) {
+			// zip entries cannot be replaced once written
+			if (fEntries.get(entryName) == checksum)
+				return;
+
+			throw new IOException("Duplicate archive entry with different content: " + entryName);
+		}
+
+		final ZipEntry entry = new ZipEntry(entryName);
+		entry.setTime(ENTRY_TIME);
+		fOutput.putNextEntry(entry);
+		fOutput.write(content, 0, length);
+		fOutput.closeEntry();
+
+		fEntries.put(entryName, checksum);
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = fArchiveFile.getPath() + "!/" + entryName;
+			event.bytesWritten = length;
+			event.commit();
+		}
+	}
+
+	@Override
+	public String getBuildInclude() {
+		return fArchiveFile.getName();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		fOutput.flush();
+	}
+
+	@Override
+	public void commit() throws IOException {
+		fOutput.close();
+
+		if (isUnchanged())
+			Files.delete(fTempFile.toPath());
+		else
+			Files.move(fTempFile.toPath(), fArchiveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		fCommitted = true;
+	}
+
+	/**
+	 * Close the archive. Content that was not committed is discarded and the previous archive is kept.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!fCommitted) {
+			fOutput.close();
+			Files.deleteIfExists(fTempFile.toPath());
+		}
+	}
+
+	/**
+	 * Compare written entries against the previous archive.
+	 *
+	 * @return <code>true</code> when the previous archive contains exactly the same entries
+	 */
+	private boolean isUnchanged() {
+		if (!fArchiveFile.isFile())
+			return false;
+
+		try (ZipFile previous = new ZipFile(fArchiveFile)) {
+			if (previous.size() != fEntries.size())
+				return false;
+
+			final Enumeration<? extends ZipEntry> previousEntries = previous.entries();
+			for (final Entry<String, Long> entry : fEntries.entrySet()) {
+				final ZipEntry previousEntry = previousEntries.nextElement();
+				if ((!entry.getKey().equals(previousEntry.getName())) || (entry.getValue() != previousEntry.getCrc()))
+					return false;
+			}
+
+			return true;
+
+		} catch (final IOException e) {
+			// cannot read previous archive, replace it
+			return false;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes help content as individual files to the <i>help</i> folder of a project. Names of written files are recorded, so files generated by previous runs
+ * that were not written again can be removed.
+ * <p>
+ * Files are written to hidden temporary files next to their target and renamed when the output gets committed. Failed runs leave the files of the
+ * previous run in place.
+ * </p>
+ */
+public class HelpFolderOutput implements IHelpOutput {
+
+	private final File fHelpFolder;
+
+	/** Files written by this run. */
+	private final Set<String> fWritten = new HashSet<>();
+
+	/** Files written to temporary files and not committed yet. */
+	private final Set<String> fPending = new HashSet<>();
+
+	private long fStaleBytes = 0;
+
+	public HelpFolderOutput(final File helpFolder) {
+		fHelpFolder = helpFolder;
+	}
+
+	@Override
+	public void write(final String name, final String data) throws IOException {
+		ModuleDoclet.writeFile(getTemporaryFile(name), data);
+		fWritten.add(name);
+		fPending.add(name);
+	}
+
+	@Override
+	public void write(final String name, final Utf8Buffer data) throws IOException {
+		ModuleDoclet.writeFile(getTemporaryFile(name), data);
+		fWritten.add(name);
+		fPending.add(name);
+	}
+
+	private File getTemporaryFile(final String name) {
+		return new File(fHelpFolder, "." + name + ".tmp");
+	}
+
+	/**
+	 * Remove generated files that were not written by this run, eg pages of removed or renamed modules. The help folder is scanned once, only files matching
+	 * {@link ModuleDoclet#isGeneratedFile(String)} are considered, so files added manually to the help folder are kept.
+	 *
+	 * @param dryRun
+	 *            <code>true</code> to detect stale files without deleting them
+	 * @return names of stale files
+	 * @throws IOException
+	 *             when the help folder cannot be read or a file cannot be deleted
+	 */
+	public List<String> removeStaleFiles(final boolean dryRun) throws IOException {
+		final List<String> staleFiles = new ArrayList<>();
+		fStaleBytes = 0;
+
+		if (!fHelpFolder.isDirectory())
+			return staleFiles;
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(fHelpFolder.toPath(),
+				path -> ModuleDoclet.isGeneratedFile(path.getFileName().toString()) && !fWritten.contains(path.getFileName().toString()))) {
+			for (final Path path : stream) {
+				if (!Files.isRegularFile(path))
+					continue;
+
+				staleFiles.add(path.getFileName().toString());
+				fStaleBytes += Files.size(path);
+
+				if (!dryRun)
+					Files.delete(path);
+			}
+		}
+
+		staleFiles.sort(null);
+		return staleFiles;
+	}
+
+	/**
+	 * @return size of the stale files found by the last call to {@link #removeStaleFiles(boolean)}
+	 */
+	public long getStaleBytes() {
+		return fStaleBytes;
+	}
+
+	@Override
+	public String getBuildInclude() {
+		return "help/";
+	}
+
+	@Override
+	public void flush() {
+		// files are written immediately
+	}
+
+	/**
+	 * Move all written files to their final location.
+	 */
+	@Override
+	public void commit() throws IOException {
+		for (final String name : fPending)
+			Files.move(getTemporaryFile(name).toPath(), new File(fHelpFolder, name).toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+
+		fPending.clear();
+	}
+
+	/**
+	 * Remove files that were not committed.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (final String name : fPending)
+			Files.deleteIfExists(getTemporaryFile(name).toPath());
+	}
+}
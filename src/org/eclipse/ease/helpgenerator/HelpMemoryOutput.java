@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Keeps generated help content in memory. Used to compare the results of several generation runs.
+ */
+public class HelpMemoryOutput implements IHelpOutput {
+
+	/** Maps file name -> UTF-8 encoded content, in write order. */
+	private final Map<String, byte[]> fEntries = new LinkedHashMap<>();
+
+	@Override
+	public void write(final String name, final String data) {
+		fEntries.put(name, data.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void write(final String name, final Utf8Buffer data) {
+		fEntries.put(name, data.toByteArray());
+	}
+
+	@Override
+	public void flush() {
+		// nothing to do
+	}
+
+	@Override
+	public String getBuildInclude() {
+		return "help/";
+	}
+
+	@Override
+	public void commit() {
+		// nothing to do
+	}
+
+	@Override
+	public void close() {
+		// nothing to do
+	}
+
+	/**
+	 * Compare content and write order with another output.
+	 *
+	 * @param other
+	 *            output to compare with
+	 * @return descriptions of differences, empty when both outputs are identical
+	 */
+	public Collection<String> compare(final HelpMemoryOutput other) {
+		final Collection<String> differences = new ArrayList<>();
+
+		for (final Entry<String, byte[]> entry : fEntries.entrySet()) {
+			final byte[] otherContent = other.fEntries.get(entry.getKey());
+			if (otherContent == null)
+				differences.add("missing in second run: " + entry.getKey());
+			else if (!Arrays.equals(entry.getValue(), otherContent))
+				differences.add("content differs: " + entry.getKey());
+		}
+
+		for (final String name : other.fEntries.keySet()) {
+			if (!fEntries.containsKey(name))
+				differences.add("missing in first run: " + name);
+		}
+
+		if (differences.isEmpty() && (!new ArrayList<>(fEntries.keySet()).equals(new ArrayList<>(other.fEntries.keySet()))))
+			differences.add("files written in different order");
+
+		return differences;
+	}
+
+	/**
+	 * Write all stored entries to another output.
+	 *
+	 * @param output
+	 *            target output
+	 * @throws IOException
+	 *             when content cannot be written
+	 */
+	public void copyTo(final IHelpOutput output) throws IOException {
+		// copy bytes as is, entries are not necessarily text
+		final Utf8Buffer buffer = new Utf8Buffer();
+		for (final Entry<String, byte[]> entry : fEntries.entrySet()) {
+			buffer.reset();
+			output.write(entry.getKey(), buffer.append(entry.getValue()));
+		}
+	}
+}
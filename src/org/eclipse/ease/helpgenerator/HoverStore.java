@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader for the hover fragment store of a plugin. The store holds the rendered help block of every exported method and constant, so help hovers can be
+ * served without loading and parsing module pages. Fragments are looked up by module id and member name, method aliases resolve to the fragment of their
+ * method. Links within fragments are relative to the help folder, like links in module pages.
+ * <p>
+ * The file is memory mapped and lookups do not copy fragment data. A store may be shared by multiple threads.
+ * </p>
+ * <p>
+ * File layout, all numbers are big-endian 32 bit integers:
+ * </p>
+ *
+ * <pre>
+ * header     magic "EHFS", version, slot count (power of 2), entry count
+ * slots      per slot: key hash, key offset (0 for empty slots), key length, fragment offset, fragment length
+ * keys       UTF-8 encoded keys <i>&lt;module id&gt;#&lt;member name&gt;</i>
+ * fragments  UTF-8 encoded HTML fragments
+ * </pre>
+ *
+ * Keys are hashed with 32 bit FNV-1a over their UTF-8 bytes. A key is stored in slot <i>hash &amp; (slot count - 1)</i> or, when occupied, in the next
+ * free slot. At most half of the slots are used.
+ */
+public class HoverStore {
+
+	/** Name of the store in the help folder. */
+	public static final String FILE_NAME = "hovers.bin";
+
+	static final int MAGIC = 0x45484653;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int SLOT_SIZE = 20;
+
+	/**
+	 * Memory map a hover fragment store.
+	 *
+	 * @param file
+	 *            store file, usually {@link #FILE_NAME} in the help folder of a plugin
+	 * @return hover fragment store
+	 * @throws IOException
+	 *             when the file cannot be read or is not a hover fragment store
+	 */
+	public static HoverStore open(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new HoverStore(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Create the lookup key of a member.
+	 *
+	 * @param moduleId
+	 *            module id as registered in plugin.xml
+	 * @param member
+	 *            method name, alias or constant name
+	 * @return store key
+	 */
+	public static String createKey(final String moduleId, final String member) {
+		return moduleId + "#" + member;
+	}
+
+	static int hash(final byte[] key) {
+		int hash = 0x811c9dc5;
+		for (final byte b : key)
+			hash = (hash ^ (b & 0xff)) * 0x01000193;
+
+		return hash;
+	}
+
+	private final ByteBuffer fData;
+	private final int fSlotMask;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param data
+	 *            store content
+	 * @throws IOException
+	 *             when the content is not a hover fragment store
+	 */
+	HoverStore(final ByteBuffer data) throws IOException {
+		fData = data;
+
+		if ((data.limit() < HEADER_SIZE) || (data.getInt(0) != MAGIC))
+			throw new IOException("Not a hover fragment store");
+
+		if (data.getInt(4) != VERSION)
+			throw new IOException("Unsupported hover fragment store version " + data.getInt(4));
+
+		final int slots = data.getInt(8);
+		if ((Integer.bitCount(slots) != 1) || (HEADER_SIZE + ((long) slots * SLOT_SIZE) > data.limit()))
+			throw new IOException("Corrupt hover fragment store");
+
+		fSlotMask = slots - 1;
+	}
+
+	/**
+	 * Get the amount of stored keys, including aliases.
+	 *
+	 * @return key count
+	 */
+	public int size() {
+		return fData.getInt(12);
+	}
+
+	/**
+	 * Get the UTF-8 encoded fragment of a member. The returned buffer is a read-only view on the store.
+	 *
+	 * @param moduleId
+	 *            module id as registered in plugin.xml
+	 * @param member
+	 *            method name, alias or constant name
+	 * @return UTF-8 encoded HTML fragment or <code>null</code> when the member is not stored
+	 */
+	public ByteBuffer getFragmentData(final String moduleId, final String member) {
+		final byte[] key = createKey(moduleId, member).getBytes(StandardCharsets.UTF_8);
+		final int hash = hash(key);
+
+		for (int slot = hash & fSlotMask;; slot = (slot + 1) & fSlotMask) {
+			final int position = HEADER_SIZE + (slot * SLOT_SIZE);
+			final int keyOffset = fData.getInt(position + 4);
+			if (keyOffset == 0)
+				return null;
+
+			if ((fData.getInt(position) == hash) && (fData.getInt(position + 8) == key.length) && (matches(keyOffset, key))) {
+				final int fragmentOffset = fData.getInt(position + 12);
+				final ByteBuffer fragment = fData.asReadOnlyBuffer();
+				fragment.limit(fragmentOffset + fData.getInt(position + 16)).position(fragmentOffset);
+				return fragment.slice();
+			}
+		}
+	}
+
+	/**
+	 * Get the HTML fragment of a member.
+	 *
+	 * @param moduleId
+	 *            module id as registered in plugin.xml
+	 * @param member
+	 *            method name, alias or constant name
+	 * @return HTML fragment or <code>null</code> when the member is not stored
+	 */
+	public String getFragment(final String moduleId, final String member) {
+		final ByteBuffer data = getFragmentData(moduleId, member);
+		return (data != null) ? StandardCharsets.UTF_8.decode(data).toString() : null;
+	}
+
+	private boolean matches(final int offset, final byte[] key) {
+		for (int index = 0; index < key.length; index++) {
+			if (fData.get(offset + index) != key[index])
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Collects rendered method and constant blocks while module pages are written and stores them in the {@link HoverStore} format. Fragments are kept per
+ * module, so rendering a module again replaces its previous fragments. Keys and fragments are written in sorted order to get reproducible output.
+ */
+class HoverStoreWriter {
+
+	/** Fragments of a single module. */
+	private static final class ModuleFragments {
+		private final Utf8Buffer fContent = new Utf8Buffer(4 * 1024);
+
+		/** Member name -&gt; offset and length in content. Aliases share the range of their method. */
+		private final Map<String, int[]> fEntries = new TreeMap<>();
+	}
+
+	private final Map<String, ModuleFragments> fModules = new TreeMap<>();
+
+	/**
+	 * Start collecting fragments of a module. Previously collected fragments of the module are dropped.
+	 *
+	 * @param moduleId
+	 *            module id
+	 */
+	void startModule(final String moduleId) {
+		fModules.put(moduleId, new ModuleFragments());
+	}
+
+	/**
+	 * Add the fragment of a member. A member put twice keeps its last fragment.
+	 *
+	 * @param moduleId
+	 *            module id
+	 * @param member
+	 *            method or constant name
+	 * @param aliases
+	 *            alternative names of the member
+	 * @param data
+	 *            UTF-8 encoded fragment data
+	 * @param start
+	 *            index of the first fragment byte
+	 * @param end
+	 *            index after the last fragment byte
+	 */
+	void put(final String moduleId, final String member, final Collection<String> aliases, final byte[] data, final int start, final int end) {
+		final ModuleFragments module = fModules.computeIfAbsent(moduleId, id -> new ModuleFragments());
+
+		final int[] range = new int[] { module.fContent.length(), end - start };
+		module.fContent.append(data, start, end);
+
+		module.fEntries.put(member, range);
+		for (final String alias : aliases)
+			module.fEntries.put(alias, range);
+	}
+
+	/**
+	 * Drop fragments of modules that no longer exist.
+	 *
+	 * @param moduleIds
+	 *            ids of all current modules
+	 */
+	void retainModules(final Collection<String> moduleIds) {
+		fModules.keySet().retainAll(moduleIds);
+	}
+
+	/**
+	 * Get the amount of stored keys, including aliases.
+	 *
+	 * @return key count
+	 */
+	int getEntryCount() {
+		int count = 0;
+		for (final ModuleFragments module : fModules.values())
+			count += module.fEntries.size();
+
+		return count;
+	}
+
+	/**
+	 * Write the store to {@link HoverStore#FILE_NAME}.
+	 *
+	 * @param output
+	 *            target for generated files
+	 * @throws IOException
+	 *             on write errors
+	 */
+	void write(final IHelpOutput output) throws IOException {
+		final int entries = getEntryCount();
+		int slots = 2;
+		while (slots < entries * 2)
+			slots <<= 1;
+
+		// keys follow the slot table, fragments follow the keys
+		final List<byte[]> keys = new ArrayList<>(entries);
+		final List<int[]> ranges = new ArrayList<>(entries);
+		int keysLength = 0;
+		for (final Entry<String, ModuleFragments> module : fModules.entrySet()) {
+			for (final Entry<String, int[]> entry : module.getValue().fEntries.entrySet()) {
+				final byte[] key = HoverStore.createKey(module.getKey(), entry.getKey()).getBytes(StandardCharsets.UTF_8);
+				keys.add(key);
+				ranges.add(entry.getValue());
+				keysLength += key.length;
+			}
+		}
+
+		final ByteBuffer table = ByteBuffer.allocate(HoverStore.HEADER_SIZE + (slots * HoverStore.SLOT_SIZE));
+		table.putInt(HoverStore.MAGIC).putInt(HoverStore.VERSION).putInt(slots).putInt(entries);
+
+		final int mask = slots - 1;
+		int keyOffset = table.capacity();
+		int fragmentBase = table.capacity() + keysLength;
+		int index = 0;
+		for (final ModuleFragments module : fModules.values()) {
+			for (int entry = 0; entry < module.fEntries.size(); entry++, index++) {
+				final byte[] key = keys.get(index);
+				final int hash = HoverStore.hash(key);
+
+				int slot = hash & mask;
+				while (table.getInt(HoverStore.HEADER_SIZE + (slot * HoverStore.SLOT_SIZE) + 4) != 0)
+					slot = (slot + 1) & mask;
+
+				table.position(HoverStore.HEADER_SIZE + (slot * HoverStore.SLOT_SIZE));
+				table.putInt(hash).putInt(keyOffset).putInt(key.length).putInt(fragmentBase + ranges.get(index)[0]).putInt(ranges.get(index)[1]);
+
+				keyOffset += key.length;
+			}
+
+			fragmentBase += module.fContent.length();
+		}
+
+		final Utf8Buffer content = new Utf8Buffer(fragmentBase);
+		content.append(table.array());
+		for (final byte[] key : keys)
+			content.append(key);
+
+		for (final ModuleFragments module : fModules.values())
+			content.append(module.fContent.getData(), 0, module.fContent.length());
+
+		output.write(HoverStore.FILE_NAME, content);
+	}
+}
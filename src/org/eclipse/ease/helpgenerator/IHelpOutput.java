@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Target for generated help content. Implementations decide whether content ends up as plain files in the help folder or bundled in a single archive.
+ * <p>
+ * Content becomes final when {@link #commit()} is called after a successful generation run. Outputs closed without a commit keep the content of the
+ * previous run where supported.
+ * </p>
+ */
+public interface IHelpOutput extends Closeable {
+
+	/**
+	 * Write a help resource.
+	 *
+	 * @param name
+	 *            file name relative to the help folder, eg <i>module_org.eclipse.ease.modules.platform.html</i>
+	 * @param data
+	 *            file content
+	 * @throws IOException
+	 *             when the resource cannot be written
+	 */
+	void write(String name, String data) throws IOException;
+
+	/**
+	 * Write a help resource from an UTF-8 encoded buffer. The buffer may be reused by the caller once this method returns.
+	 *
+	 * @param name
+	 *            file name relative to the help folder
+	 * @param data
+	 *            UTF-8 encoded file content
+	 * @throws IOException
+	 *             when the resource cannot be written
+	 */
+	void write(String name, Utf8Buffer data) throws IOException;
+
+	/**
+	 * Push buffered content to the underlying storage.
+	 *
+	 * @throws IOException
+	 *             when content cannot be flushed
+	 */
+	void flush() throws IOException;
+
+	/**
+	 * Mark all written content as complete. To be called once generation succeeded, before the output is closed.
+	 *
+	 * @throws IOException
+	 *             when content cannot be committed
+	 */
+	void commit() throws IOException;
+
+	/**
+	 * Get the entry to be added to <i>bin.includes</i> of the build.properties file so that generated content gets packaged.
+	 *
+	 * @return build.properties include entry
+	 */
+	String getBuildInclude();
+}
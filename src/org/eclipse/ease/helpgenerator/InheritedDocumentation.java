@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.doctree.DocTree;
+import com.sun.source.doctree.ParamTree;
+import com.sun.source.doctree.ReturnTree;
+import com.sun.source.doctree.ThrowsTree;
+import com.sun.source.util.DocTrees;
+
+/**
+ * Resolves method documentation including <code>{&#64;inheritDoc}</code> and implicit inheritance from overridden methods of interfaces and superclasses.
+ * <p>
+ * One instance is shared by all modules of a run. Overridden method chains, parsed doc comments and resolved texts are cached per
+ * {@link ExecutableElement}, so documentation of shared base classes is resolved once, not once per subclass.
+ * </p>
+ */
+public class InheritedDocumentation {
+
+	/** Extracts a part (description, parameter, ...) of a doc comment and caches the resolved text. */
+	private abstract class Part {
+		private final Map<ExecutableElement, String> fResolved = new HashMap<>();
+
+		/**
+		 * Extract the part from the doc comment of a method.
+		 *
+		 * @return doc trees of the part or <code>null</code> when not documented
+		 */
+		protected abstract List<? extends DocTree> extract(ExecutableElement method, DocCommentTree comment);
+
+		String resolve(final ExecutableElement method) {
+			String text = fResolved.get(method);
+			if (text == null) {
+				final DocCommentTree comment = getDocComment(method);
+				final List<? extends DocTree> content = (comment != null) ? extract(method, comment) : null;
+
+				if ((content != null) && (!content.isEmpty()))
+					text = render(content, method, this);
+				else
+					text = resolveInherited(method, this);
+
+				fResolved.put(method, text);
+			}
+
+			return text;
+		}
+	}
+
+	private final Part fDescription = new Part() {
+		@Override
+		protected List<? extends DocTree> extract(final ExecutableElement method, final DocCommentTree comment) {
+			return comment.getFullBody();
+		}
+	};
+
+	private final Part fReturn = new Part() {
+		@Override
+		protected List<? extends DocTree> extract(final ExecutableElement method, final DocCommentTree comment) {
+			for (final DocTree tag : comment.getBlockTags()) {
+				if (tag.getKind() == DocTree.Kind.RETURN)
+					return ((ReturnTree) tag).getDescription();
+			}
+
+			return null;
+		}
+	};
+
+	/** Parameter parts by parameter index. Names may change in overriding methods, so parameters are matched by position. */
+	private final List<Part> fParameters = new ArrayList<>();
+
+	/** Throws parts by exception type name. */
+	private final Map<String, Part> fExceptions = new HashMap<>();
+
+	private final DocTrees fDocTrees;
+	private final Elements fElements;
+	private final Types fTypes;
+
+	private final Map<ExecutableElement, List<ExecutableElement>> fOverriddenMethods = new HashMap<>();
+	private final Map<Element, DocCommentTree> fDocComments = new HashMap<>();
+
+	public InheritedDocumentation(final DocTrees docTrees, final Elements elements, final Types types) {
+		fDocTrees = docTrees;
+		fElements = elements;
+		fTypes = types;
+	}
+
+	/**
+	 * Get the main description of a method.
+	 *
+	 * @return description text or an empty string
+	 */
+	public String getComment(final ExecutableElement method) {
+		return fDescription.resolve(method);
+	}
+
+	/**
+	 * Get the main description of a field. Fields do not inherit documentation, but the parsed comment is cached like for methods.
+	 *
+	 * @return description text or an empty string
+	 */
+	public String getComment(final VariableElement field) {
+		final DocCommentTree comment = getDocComment(field);
+		return (comment != null) ? render(comment.getFullBody(), null, fDescription) : "";
+	}
+
+	/**
+	 * Get the raw doc comments a method's documentation is resolved from: its own comment followed by the comments of all overridden methods.
+	 *
+	 * @return raw comment text, used to detect documentation changes
+	 */
+	public String getCommentSource(final ExecutableElement method) {
+		final StringBuilder source = new StringBuilder();
+		source.append(fElements.getDocComment(method));
+		for (final ExecutableElement overridden : getOverriddenMethods(method))
+			source.append('\u0000').append(fElements.getDocComment(overridden));
+
+		return source.toString();
+	}
+
+	/**
+	 * Get the raw doc comment of a field.
+	 *
+	 * @return raw comment text, used to detect documentation changes
+	 */
+	public String getCommentSource(final VariableElement field) {
+		return String.valueOf(fElements.getDocComment(field));
+	}
+
+	/**
+	 * Get the description of the <i>@return</i> tag of a method.
+	 *
+	 * @return return value description or an empty string
+	 */
+	public String getReturnComment(final ExecutableElement method) {
+		return fReturn.resolve(method);
+	}
+
+	/**
+	 * Get the description of a method parameter.
+	 *
+	 * @param index
+	 *            parameter index, starting with 0
+	 * @return parameter description or an empty string
+	 */
+	public String getParameterComment(final ExecutableElement method, final int index) {
+		while (fParameters.size() <= index) {
+			final int parameterIndex = fParameters.size();
+			fParameters.add(new Part() {
+				@Override
+				protected List<? extends DocTree> extract(final ExecutableElement candidate, final DocCommentTree comment) {
+					if (candidate.getParameters().size() <= parameterIndex)
+						return null;
+
+					final String name = candidate.getParameters().get(parameterIndex).getSimpleName().toString();
+					for (final DocTree tag : comment.getBlockTags()) {
+						if ((tag.getKind() == DocTree.Kind.PARAM) && (!((ParamTree) tag).isTypeParameter())
+								&& (name.equals(((ParamTree) tag).getName().getName().toString())))
+							return ((ParamTree) tag).getDescription();
+					}
+
+					return null;
+				}
+			});
+		}
+
+		return fParameters.get(index).resolve(method);
+	}
+
+	/**
+	 * Get the description of a <i>@throws</i> tag.
+	 *
+	 * @param exceptionType
+	 *            declared exception type
+	 * @return exception description or an empty string
+	 */
+	public String getThrowsComment(final ExecutableElement method, final TypeMirror exceptionType) {
+		final String qualifiedName = exceptionType.toString();
+
+		Part part = fExceptions.get(qualifiedName);
+		if (part == null) {
+			final String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+
+			part = new Part() {
+				@Override
+				protected List<? extends DocTree> extract(final ExecutableElement candidate, final DocCommentTree comment) {
+					for (final DocTree tag : comment.getBlockTags()) {
+						if ((tag.getKind() == DocTree.Kind.THROWS) || (tag.getKind() == DocTree.Kind.EXCEPTION)) {
+							final String name = ((ThrowsTree) tag).getExceptionName().getSignature();
+							if ((simpleName.equals(name)) || (qualifiedName.equals(name)))
+								return ((ThrowsTree) tag).getDescription();
+						}
+					}
+
+					return null;
+				}
+			};
+			fExceptions.put(qualifiedName, part);
+		}
+
+		return part.resolve(method);
+	}
+
+	/**
+	 * Get all methods overridden by a method in javadoc search order: directly implemented interfaces first, then the superclass, each followed by the
+	 * methods they override in turn.
+	 *
+	 * @return overridden methods, empty when the method does not override anything
+	 */
+	public List<ExecutableElement> getOverriddenMethods(final ExecutableElement method) {
+		List<ExecutableElement> methods = fOverriddenMethods.get(method);
+		if (methods == null) {
+			final Set<ExecutableElement> candidates = new LinkedHashSet<>();
+			final Element enclosingElement = method.getEnclosingElement();
+			if (enclosingElement instanceof TypeElement) {
+				final TypeElement origin = (TypeElement) enclosingElement;
+				for (final TypeElement superType : getSuperTypes(origin))
+					collectOverriddenMethods(method, origin, superType, candidates);
+			}
+
+			methods = candidates.isEmpty() ? Collections.emptyList() : new ArrayList<>(candidates);
+			fOverriddenMethods.put(method, methods);
+		}
+
+		return methods;
+	}
+
+	private void collectOverriddenMethods(final ExecutableElement method, final TypeElement origin, final TypeElement type,
+			final Set<ExecutableElement> candidates) {
+		for (final Element element : type.getEnclosedElements()) {
+			if ((element.getKind() == ElementKind.METHOD) && (element.getSimpleName().equals(method.getSimpleName()))
+					&& (fElements.overrides(method, (ExecutableElement) element, origin))) {
+				// found directly overridden method, reuse its (cached) chain
+				if (candidates.add((ExecutableElement) element))
+					candidates.addAll(getOverriddenMethods((ExecutableElement) element));
+
+				return;
+			}
+		}
+
+		// not declared in this type, look further up
+		for (final TypeElement superType : getSuperTypes(type))
+			collectOverriddenMethods(method, origin, superType, candidates);
+	}
+
+	/**
+	 * Get the direct supertypes of a type: interfaces in declaration order followed by the superclass.
+	 */
+	List<TypeElement> getSuperTypes(final TypeElement type) {
+		final List<TypeElement> superTypes = new ArrayList<>();
+		for (final TypeMirror candidate : type.getInterfaces()) {
+			final Element element = fTypes.asElement(candidate);
+			if (element instanceof TypeElement)
+				superTypes.add((TypeElement) element);
+		}
+
+		final Element superClass = fTypes.asElement(type.getSuperclass());
+		if (superClass instanceof TypeElement)
+			superTypes.add((TypeElement) superClass);
+
+		return superTypes;
+	}
+
+	private DocCommentTree getDocComment(final Element element) {
+		if (!fDocComments.containsKey(element))
+			fDocComments.put(element, fDocTrees.getDocCommentTree(element));
+
+		return fDocComments.get(element);
+	}
+
+	private String resolveInherited(final ExecutableElement method, final Part part) {
+		for (final ExecutableElement overridden : getOverriddenMethods(method)) {
+			final String text = part.resolve(overridden);
+			if (!text.isEmpty())
+				return text;
+		}
+
+		return "";
+	}
+
+	private String render(final List<? extends DocTree> content, final ExecutableElement method, final Part part) {
+		final StringBuilder builder = new StringBuilder();
+		for (final DocTree tree : content) {
+			if (tree.getKind() == DocTree.Kind.INHERIT_DOC) {
+				if (method != null)
+					builder.append(resolveInherited(method, part));
+			} else
+				builder.append(tree);
+		}
+
+		return builder.toString().trim();
+	}
+}
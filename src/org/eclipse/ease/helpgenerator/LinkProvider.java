@@ -10,9 +10,11 @@
  *******************************************************************************/
 package org.eclipse.ease.helpgenerator;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,11 +32,87 @@ public class LinkProvider {
 	/** Pattern to parse a link. */
 	private static final Pattern PATTERN_INNER_LINK = Pattern.compile("(\\w+(?:\\.\\w+)*)?(?:#(\\w+)(?:\\((.*?)\\))?)?");
 
-	/** Maps (URL to use) -> Collection of package names. */
-	private final Map<String, Collection<String>> fExternalDocs = new HashMap<>();
+	/** Package indexes of external documentation sites, queried in registration order. */
+	private final List<PackageIndex> fPackageIndexes = new ArrayList<>();
+
+	/** Sites registered from package lists, converted to an index on first use. */
+	private PackageIndex.Builder fPendingSites = new PackageIndex.Builder();
+
+	/** UTF-8 encoded package name of the current lookup. */
+	private byte[] fPackageKey = new byte[256];
+
+	/** Receives ids of modules referenced by {&#64;module} links, <code>null</code> when not recording. */
+	private Collection<String> fModuleLinks = null;
+
+	/** Hash of all registered sites and packages, <code>null</code> when not calculated yet. */
+	private String fFingerprint = null;
 
 	public void registerAddress(final String location, final Collection<String> packages) {
-		fExternalDocs.put(location, packages);
+		fPendingSites.addSite(location, packages);
+		fFingerprint = null;
+	}
+
+	/**
+	 * Register all sites of a binary package index.
+	 *
+	 * @param packageIndex
+	 *            index to query after all previously registered sites
+	 */
+	public void registerIndex(final PackageIndex packageIndex) {
+		flushPendingSites();
+		fPackageIndexes.add(packageIndex);
+		fFingerprint = null;
+	}
+
+	private void flushPendingSites() {
+		if (!fPendingSites.isEmpty()) {
+			try {
+				fPackageIndexes.add(new PackageIndex(ByteBuffer.wrap(fPendingSites.toByteArray()), "package lists"));
+			} catch (final IOException e) {
+				// data created by the builder is always valid
+				throw new IllegalStateException(e);
+			}
+
+			fPendingSites = new PackageIndex.Builder();
+		}
+	}
+
+	/**
+	 * Get a fingerprint of the link configuration. Rendered content containing links only needs to change when this fingerprint changes.
+	 *
+	 * @return hash of registered sites and their packages
+	 */
+	public String getFingerprint() {
+		if (fFingerprint == null) {
+			flushPendingSites();
+
+			final StringBuilder configuration = new StringBuilder();
+			for (final PackageIndex packageIndex : fPackageIndexes)
+				configuration.append(packageIndex.getFingerprint()).append('\n');
+
+			fFingerprint = DependencyGraph.hash(configuration.toString());
+		}
+
+		return fFingerprint;
+	}
+
+	/**
+	 * Record ids of modules referenced by <code>{&#64;module}</code> links in subsequent {@link #insertLinks(Element, String)} calls.
+	 *
+	 * @param moduleLinks
+	 *            collection to add referenced module ids to, <code>null</code> to stop recording
+	 */
+	public void recordModuleLinks(final Collection<String> moduleLinks) {
+		fModuleLinks = moduleLinks;
+	}
+
+	/**
+	 * Get the collection currently recording module links.
+	 *
+	 * @return recorded module ids or <code>null</code> when links are not recorded
+	 */
+	public Collection<String> getRecordedModuleLinks() {
+		return fModuleLinks;
 	}
 
 	public static String resolveClassName(final String candidate, final Element clazz) {
@@ -45,26 +123,18 @@ public class LinkProvider {
 	public String createClassText(String qualifiedName) {
 		if (qualifiedName.contains(".")) {
 
+			final GeneratorEvents.LinkResolutionEvent event = GeneratorEvents.LinkResolutionEvent.sample();
 			final String urlLocation = findClassURL(qualifiedName);
+			if (event != null) {
+				event.target = qualifiedName;
+				event.resolved = urlLocation != null;
+				event.commit();
+			}
+
 			if (urlLocation != null) {
 				final String packageName = qualifiedName.substring(0, qualifiedName.lastIndexOf('.'));
-
-				// first run, look for exact package match
-				for (final Entry<String, Collection<String>> entry : fExternalDocs.entrySet()) {
-					if (entry.getValue().contains(packageName))
-						return "<a href=\"" + urlLocation + "\" title=\"" + HTMLWriter.escapeText(qualifiedName) + "\">"
-								+ HTMLWriter.escapeText(qualifiedName.substring(packageName.length() + 1)) + "</a>";
-				}
-
-				// not found; try to locate matching parent package and hope for
-				// the best
-				for (final Entry<String, Collection<String>> entry : fExternalDocs.entrySet()) {
-					for (final String entryPackage : entry.getValue()) {
-						if (packageName.startsWith(entryPackage))
-							return "<a href=\"" + urlLocation + "\" title=\"" + HTMLWriter.escapeText(qualifiedName) + "\">"
-									+ HTMLWriter.escapeText(qualifiedName.substring(packageName.length() + 1)) + "</a>";
-					}
-				}
+				return "<a href=\"" + urlLocation + "\" title=\"" + HTMLWriter.escapeText(qualifiedName) + "\">"
+						+ HTMLWriter.escapeText(qualifiedName.substring(packageName.length() + 1)) + "</a>";
 
 			} else
 				qualifiedName = HTMLWriter.escapeText(qualifiedName);
@@ -171,27 +241,77 @@ public class LinkProvider {
 			qualifiedName = qualifiedName.substring(0, qualifiedName.indexOf("<"));
 
 		if (qualifiedName.contains(".")) {
-			final String packageName = qualifiedName.substring(0, qualifiedName.lastIndexOf('.'));
+			final String site = findSite(qualifiedName, qualifiedName.lastIndexOf('.'));
+			if (site != null)
+				return site + "/" + qualifiedName.replace('.', '/') + ".html";
+		}
 
-			// first run, look for exact package match
-			for (final Entry<String, Collection<String>> entry : fExternalDocs.entrySet()) {
-				if (entry.getValue().contains(packageName))
-					return entry.getKey() + "/" + qualifiedName.replace('.', '/') + ".html";
-			}
+		return null;
+	}
 
-			// not found; try to locate matching parent package and hope for the
-			// best
-			for (final Entry<String, Collection<String>> entry : fExternalDocs.entrySet()) {
-				for (final String entryPackage : entry.getValue()) {
-					if (packageName.startsWith(entryPackage))
-						return entry.getKey() + "/" + qualifiedName.replace('.', '/') + ".html";
-				}
+	/**
+	 * Find the documentation site of a package. Looks for an exact package match first. When not found, a site documenting a parent package is used, hoping for
+	 * the best.
+	 *
+	 * @param qualifiedName
+	 *            qualified class name
+	 * @param packageLength
+	 *            length of the package part of <i>qualifiedName</i>
+	 * @return site URL or <code>null</code>
+	 */
+	private String findSite(final String qualifiedName, final int packageLength) {
+		flushPendingSites();
+		if (fPackageIndexes.isEmpty())
+			return null;
+
+		final int keyLength = encodePackage(qualifiedName, packageLength);
+
+		// first run, look for exact package match
+		for (final PackageIndex packageIndex : fPackageIndexes) {
+			final int site = packageIndex.findSite(fPackageKey, keyLength);
+			if (site >= 0)
+				return packageIndex.getSite(site);
+		}
+
+		// not found; try the longest registered parent package
+		for (int length = keyLength - 1; length > 0; length--) {
+			for (final PackageIndex packageIndex : fPackageIndexes) {
+				final int site = packageIndex.findSite(fPackageKey, length);
+				if (site >= 0)
+					return packageIndex.getSite(site);
 			}
 		}
 
 		return null;
 	}
 
+	/**
+	 * Store the UTF-8 encoded package name in {@link #fPackageKey}.
+	 *
+	 * @return amount of bytes used
+	 */
+	private int encodePackage(final String qualifiedName, final int packageLength) {
+		if (fPackageKey.length < packageLength)
+			fPackageKey = new byte[packageLength * 3];
+
+		for (int index = 0; index < packageLength; index++) {
+			final char character = qualifiedName.charAt(index);
+			if (character >= 0x80) {
+				// non ASCII package name, rare enough to take the slow path
+				final byte[] encoded = qualifiedName.substring(0, packageLength).getBytes(StandardCharsets.UTF_8);
+				if (fPackageKey.length < encoded.length)
+					fPackageKey = new byte[encoded.length];
+
+				System.arraycopy(encoded, 0, fPackageKey, 0, encoded.length);
+				return encoded.length;
+			}
+
+			fPackageKey[index] = (byte) character;
+		}
+
+		return packageLength;
+	}
+
 	public String insertLinks(final Element clazz, final String text) {
 
 		final StringBuilder output = new StringBuilder();
@@ -245,7 +365,15 @@ public class LinkProvider {
 					} else {
 						// external document
 
+						final GeneratorEvents.LinkResolutionEvent event = GeneratorEvents.LinkResolutionEvent.sample();
 						final String classURL = findClassURL(resolveClassName(linkMatcher.group(1), clazz));
+						if (event != null) {
+							event.className = String.valueOf(clazz);
+							event.target = matcher.group(2);
+							event.resolved = classURL != null;
+							event.commit();
+						}
+
 						if (classURL != null)
 							output.append("<a href=\"" + classURL + link + "\">");
 
@@ -273,6 +401,9 @@ public class LinkProvider {
 					} else {
 						// external document
 						final String plugin = linkMatcher.group(1).substring(0, linkMatcher.group(1).lastIndexOf('.'));
+						if (fModuleLinks != null)
+							fModuleLinks.add(linkMatcher.group(1));
+
 						if (linkMatcher.group(2) != null)
 							output.append("<a href=\"../../" + plugin + "/help/" + ModuleDoclet.createHTMLFileName(linkMatcher.group(1)) + "#"
 									+ linkMatcher.group(2) + "\">" + linkMatcher.group(2) + ((linkMatcher.group(3) != null) ? "()" : "") + "</a>");
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Heap budget for streaming generation. Between batches the generator calls {@link #checkpoint(IHelpOutput)}, which flushes pending output and requests a
+ * garbage collection when heap usage exceeds the budget.
+ */
+public class MemoryBudget {
+
+	private final MemoryMXBean fMemoryBean = ManagementFactory.getMemoryMXBean();
+
+	private final long fBudget;
+
+	private long fPeakUsage = 0;
+	private int fExceeded = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param budget
+	 *            maximum heap usage in bytes
+	 */
+	public MemoryBudget(final long budget) {
+		fBudget = budget;
+	}
+
+	/**
+	 * Called between two batches of work. When heap usage exceeds the budget pending output is flushed and a single garbage collection is requested.
+	 * Generation continues in any case, checkpoints still exceeding the budget afterwards are reported.
+	 *
+	 * @param output
+	 *            output to flush
+	 * @throws IOException
+	 *             when output cannot be flushed
+	 */
+	public void checkpoint(final IHelpOutput output) throws IOException {
+		long used = getUsedHeap();
+		fPeakUsage = Math.max(fPeakUsage, used);
+
+		if (used <= fBudget)
+			return;
+
+		output.flush();
+		System.gc();
+
+		used = getUsedHeap();
+		if (used > fBudget) {
+			System.out.println("WARNING: heap usage of " + (used / (1024 * 1024)) + " MB exceeds memory budget of " + (fBudget / (1024 * 1024)) + " MB");
+			fExceeded++;
+		}
+	}
+
+	private long getUsedHeap() {
+		return fMemoryBean.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Get the highest heap usage seen at a checkpoint.
+	 *
+	 * @return heap usage in bytes
+	 */
+	public long getPeakUsage() {
+		return fPeakUsage;
+	}
+
+	/**
+	 * Get the amount of checkpoints where the budget could not be met.
+	 *
+	 * @return amount of exceeded checkpoints
+	 */
+	public int getExceededCount() {
+		return fExceeded;
+	}
+}
@@ -0,0 +1,425 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Keeps plugin.xml, MANIFEST.MF and build.properties of the project in sync with the generated help. Files that already comply are left untouched.
+ * <p>
+ * Missing TOC registrations are inserted into plugin.xml as text right before the root end tag, all other bytes of the file including formatting and
+ * comments are preserved. When a stamp file is used, each metadata file is stamped with a hash of its content and of the requirements it was checked
+ * against. A file whose hash matches its stamp is not parsed again.
+ * </p>
+ */
+class MetadataUpdater {
+
+	private static final String STAMP_HEADER = "# help generator metadata stamps";
+
+	private static final String HELP_BUNDLE = "org.eclipse.help";
+	private static final String HELP_REQUIREMENT = "org.eclipse.help;bundle-version=\"[3.5.0,4.0.0)\"";
+	private static final String TOC_EXTENSION_POINT = "org.eclipse.help.toc";
+
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+	private static XMLInputFactory createInputFactory() {
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	private final File fRootFolder;
+	private final File fStampFile;
+
+	/** Stamp hashes by file location relative to the root folder. */
+	private final Map<String, String> fStamps = new TreeMap<>();
+	private boolean fStampsChanged = false;
+
+	private int fSkipped = 0;
+	private int fUpdated = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param rootFolder
+	 *            project root folder
+	 * @param stampFile
+	 *            file to persist stamps between runs, <code>null</code> to check all files on every run
+	 * @throws IOException
+	 *             when the stamp file cannot be read
+	 */
+	MetadataUpdater(final File rootFolder, final File stampFile) throws IOException {
+		fRootFolder = rootFolder;
+		fStampFile = stampFile;
+
+		if ((stampFile != null) && (stampFile.exists())) {
+			try (BufferedReader reader = Files.newBufferedReader(stampFile.toPath(), StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if ((line.isEmpty()) || (line.startsWith("#")))
+						continue;
+
+					final int separator = line.indexOf(' ');
+					if (separator <= 0)
+						throw new IOException("Invalid metadata stamp in " + stampFile + ": " + line);
+
+					fStamps.put(line.substring(separator + 1), line.substring(0, separator));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Register TOC files in plugin.xml (or fragment.xml) unless they are registered already.
+	 *
+	 * @param tocs
+	 *            TOC file names relative to the help folder
+	 * @throws IOException
+	 *             when the file cannot be read, parsed or written
+	 */
+	void updatePluginXML(final Collection<String> tocs) throws IOException {
+		File pluginFile = new File(fRootFolder, "plugin.xml");
+		if (!pluginFile.exists())
+			pluginFile = new File(fRootFolder, "fragment.xml");
+
+		final Set<String> toDo = new TreeSet<>(tocs);
+		final String requirement = "tocs " + String.join(",", toDo);
+
+		byte[] content = Files.readAllBytes(pluginFile.toPath());
+		if (isStamped(pluginFile, requirement, content))
+			return;
+
+		final String rootElement = removeRegisteredTocs(pluginFile, content, toDo);
+		if (!toDo.isEmpty()) {
+			content = insertTocs(pluginFile, content, rootElement, toDo);
+			write(pluginFile, content);
+		}
+
+		stamp(pluginFile, requirement, content);
+	}
+
+	/**
+	 * Add <i>org.eclipse.help</i> to the required bundles unless it is required already.
+	 *
+	 * @throws IOException
+	 *             when the manifest cannot be read or written
+	 */
+	void updateManifest() throws IOException {
+		final File manifestFile = new File(new File(fRootFolder, "META-INF"), "MANIFEST.MF");
+		final String requirement = "require " + HELP_BUNDLE;
+
+		byte[] content = Files.readAllBytes(manifestFile.toPath());
+		if (isStamped(manifestFile, requirement, content))
+			return;
+
+		final Manifest manifest = new Manifest(new ByteArrayInputStream(content));
+		final Attributes mainAttributes = manifest.getMainAttributes();
+		final String require = mainAttributes.getValue("Require-Bundle");
+
+		if ((require == null) || (!require.contains(HELP_BUNDLE))) {
+			mainAttributes.putValue("Require-Bundle", ((require == null) || (require.isEmpty())) ? HELP_REQUIREMENT : HELP_REQUIREMENT + "," + require);
+
+			final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length + HELP_REQUIREMENT.length() + 32);
+			manifest.write(output);
+			content = output.toByteArray();
+			write(manifestFile, content);
+		}
+
+		stamp(manifestFile, requirement, content);
+	}
+
+	/**
+	 * Add the help content to <i>bin.includes</i> unless it is included already.
+	 *
+	 * @param include
+	 *            include entry of the help output
+	 * @throws IOException
+	 *             when build.properties cannot be read or written
+	 */
+	void updateBuildProperties(final String include) throws IOException {
+		final File buildFile = new File(fRootFolder, "build.properties");
+		final String requirement = "include " + include;
+
+		byte[] content = Files.readAllBytes(buildFile.toPath());
+		if (isStamped(buildFile, requirement, content))
+			return;
+
+		final Properties properties = new Properties();
+		properties.load(new ByteArrayInputStream(content));
+		final String property = properties.getProperty("bin.includes", "");
+		if (!property.contains(include)) {
+			if (property.trim().isEmpty())
+				properties.setProperty("bin.includes", include);
+			else
+				properties.setProperty("bin.includes", include + "," + property.trim());
+
+			content = storeProperties(properties).getBytes(StandardCharsets.UTF_8);
+			write(buildFile, content);
+		}
+
+		stamp(buildFile, requirement, content);
+	}
+
+	/**
+	 * Persist stamps when they changed during this run.
+	 *
+	 * @throws IOException
+	 *             when the stamp file cannot be written
+	 */
+	void writeStamps() throws IOException {
+		if ((fStampFile == null) || (!fStampsChanged))
+			return;
+
+		final StringBuilder content = new StringBuilder();
+		content.append(STAMP_HEADER).append(ModuleDoclet.LINE_DELIMITER);
+		for (final Entry<String, String> stamp : fStamps.entrySet())
+			content.append(stamp.getValue()).append(' ').append(stamp.getKey()).append(ModuleDoclet.LINE_DELIMITER);
+
+		if ((fStampFile.getParentFile() != null) && (!fStampFile.getParentFile().exists()))
+			fStampFile.getParentFile().mkdirs();
+
+		Files.write(fStampFile.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+		fStampsChanged = false;
+	}
+
+	/**
+	 * @return amount of files skipped as their stamps were up to date
+	 */
+	int getSkipped() {
+		return fSkipped;
+	}
+
+	/**
+	 * @return amount of files modified
+	 */
+	int getUpdated() {
+		return fUpdated;
+	}
+
+	/**
+	 * Collect TOC registrations of plugin.xml and remove them from the given set.
+	 *
+	 * @return name of the root element
+	 */
+	private static String removeRegisteredTocs(final File pluginFile, final byte[] content, final Set<String> toDo) throws IOException {
+		String rootElement = null;
+		boolean tocExtension = false;
+		int depth = 0;
+
+		try {
+			final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(content));
+			try {
+				while (reader.hasNext()) {
+					final int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						depth++;
+						if (depth == 1)
+							rootElement = reader.getLocalName();
+
+						else if (depth == 2)
+							tocExtension = ("extension".equals(reader.getLocalName()))
+									&& (TOC_EXTENSION_POINT.equals(reader.getAttributeValue(null, "point")));
+
+						else if ((depth == 3) && (tocExtension) && ("toc".equals(reader.getLocalName()))) {
+							// a help topic is already registered
+							final String tocLocation = reader.getAttributeValue(null, "file");
+							if ((tocLocation != null) && (tocLocation.length() > 5))
+								toDo.remove(tocLocation.substring(5));
+						}
+
+					} else if (event == XMLStreamConstants.END_ELEMENT)
+						depth--;
+				}
+			} finally {
+				reader.close();
+			}
+
+		} catch (final XMLStreamException e) {
+			throw new IOException("Cannot parse " + pluginFile + ": " + e.getMessage(), e);
+		}
+
+		return rootElement;
+	}
+
+	/**
+	 * Insert TOC extensions right before the end tag of the root element. Line delimiters and indentation follow the existing extensions.
+	 */
+	private static byte[] insertTocs(final File pluginFile, final byte[] content, final String rootElement, final Set<String> tocs) throws IOException {
+		// single byte charset, so string offsets are byte offsets
+		final String text = new String(content, StandardCharsets.ISO_8859_1);
+
+		final int end = findOutsideComments(text, "</" + rootElement, true);
+		if (end < 0)
+			throw new IOException("Cannot locate end of <" + rootElement + "> in " + pluginFile);
+
+		final String lineDelimiter = text.contains("\r\n") ? "\r\n" : "\n";
+
+		final int extension = findOutsideComments(text, "<extension", false);
+		String indent = (extension >= 0) ? getIndent(text, extension) : "   ";
+		if (indent == null)
+			indent = "";
+
+		final String childIndent = indent.isEmpty() ? "   " : indent + indent;
+
+		// insert at the start of the line holding the end tag
+		int offset = end;
+		final StringBuilder insertion = new StringBuilder();
+		final String endIndent = getIndent(text, end);
+		if (endIndent != null)
+			offset = end - endIndent.length();
+		else
+			insertion.append(lineDelimiter);
+
+		for (final String toc : tocs) {
+			insertion.append(indent).append("<extension point=\"").append(TOC_EXTENSION_POINT).append("\">").append(lineDelimiter);
+			insertion.append(childIndent).append("<toc file=\"help/").append(escapeAttribute(toc)).append("\" primary=\"false\"/>").append(lineDelimiter);
+			insertion.append(indent).append("</extension>").append(lineDelimiter);
+		}
+
+		final byte[] inserted = insertion.toString().getBytes(StandardCharsets.UTF_8);
+		final byte[] result = new byte[content.length + inserted.length];
+		System.arraycopy(content, 0, result, 0, offset);
+		System.arraycopy(inserted, 0, result, offset, inserted.length);
+		System.arraycopy(content, offset, result, offset + inserted.length, content.length - offset);
+
+		return result;
+	}
+
+	/**
+	 * Find a tag that is not part of a comment.
+	 *
+	 * @param last
+	 *            <code>true</code> to find the last occurrence, <code>false</code> for the first one
+	 * @return offset of the tag or -1
+	 */
+	private static int findOutsideComments(final String text, final String tag, final boolean last) {
+		int index = last ? text.lastIndexOf(tag) : text.indexOf(tag);
+		while (index >= 0) {
+			final int commentStart = text.lastIndexOf("<!--", index);
+			final int commentEnd = (commentStart >= 0) ? text.indexOf("-->", commentStart + 4) : -1;
+			if ((commentStart < 0) || ((commentEnd >= 0) && (commentEnd < index)))
+				return index;
+
+			if (commentEnd < 0)
+				return -1;
+
+			index = last ? text.lastIndexOf(tag, commentStart) : text.indexOf(tag, commentEnd + 3);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Get the whitespace preceding a tag on its line.
+	 *
+	 * @return indentation or <code>null</code> when other content precedes the tag on the same line
+	 */
+	private static String getIndent(final String text, final int offset) {
+		int start = offset;
+		while ((start > 0) && ((text.charAt(start - 1) == ' ') || (text.charAt(start - 1) == '\t')))
+			start--;
+
+		if ((start == 0) || (text.charAt(start - 1) == '\n') || (text.charAt(start - 1) == '\r'))
+			return text.substring(start, offset);
+
+		return null;
+	}
+
+	private static String escapeAttribute(final String value) {
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+	}
+
+	/**
+	 * Serialize properties with sorted keys and without the timestamp comment added by {@link Properties#store(java.io.Writer, String)}.
+	 *
+	 * @param properties
+	 *            properties to serialize
+	 * @return properties file content
+	 */
+	private static String storeProperties(final Properties properties) throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		for (final String key : new TreeSet<>(properties.stringPropertyNames())) {
+			final Properties single = new Properties();
+			single.setProperty(key, properties.getProperty(key));
+
+			final StringWriter writer = new StringWriter();
+			single.store(writer, null);
+			for (final String line : writer.toString().split("\\R")) {
+				if ((!line.isEmpty()) && (!line.startsWith("#")))
+					builder.append(line).append(ModuleDoclet.LINE_DELIMITER);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private boolean isStamped(final File file, final String requirement, final byte[] content) {
+		if ((fStampFile != null) && (createStamp(requirement, content).equals(fStamps.get(getLocation(file))))) {
+			fSkipped++;
+			return true;
+		}
+
+		return false;
+	}
+
+	private void stamp(final File file, final String requirement, final byte[] content) {
+		if (fStampFile != null) {
+			final String stamp = createStamp(requirement, content);
+			if (!stamp.equals(fStamps.put(getLocation(file), stamp)))
+				fStampsChanged = true;
+		}
+	}
+
+	private void write(final File file, final byte[] content) throws IOException {
+		ModuleDoclet.writeFile(file, new Utf8Buffer(content.length).append(content));
+		fUpdated++;
+	}
+
+	private String getLocation(final File file) {
+		return fRootFolder.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Create a hex encoded SHA-256 hash of the requirements a file was checked against and of its content.
+	 */
+	private static String createStamp(final String requirement, final byte[] content) {
+		final MessageDigest digest = Hashes.createDigest();
+		digest.update(requirement.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(content);
+
+		return Hashes.toHex(digest.digest());
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact summary of a module definition from plugin.xml. Keeps the data needed for page creation, TOC files and metadata updates, so the plugin.xml
+ * document does not need to stay in memory.
+ */
+public class ModuleDescriptor {
+
+	private final String fId;
+	private final String fName;
+	private final String fCategory;
+	private final String fClassName;
+	private final List<String> fDependencies;
+
+	private int fDocumentationErrors = 0;
+
+	public ModuleDescriptor(final String id, final String name, final String category, final String className, final List<String> dependencies) {
+		fId = id;
+		fName = name;
+		fCategory = category;
+		fClassName = className;
+		fDependencies = Collections.unmodifiableList(dependencies);
+	}
+
+	/**
+	 * Create a descriptor from a <i>module</i> node of the <i>org.eclipse.ease.modules</i> extension point.
+	 *
+	 * @param node
+	 *            module node
+	 * @return module descriptor
+	 */
+	public static ModuleDescriptor fromMemento(final IMemento node) {
+		final List<String> dependencies = new ArrayList<>();
+		for (final IMemento dependency : node.getChildren("dependency"))
+			dependencies.add(dependency.getString("module"));
+
+		return new ModuleDescriptor(node.getString("id"), node.getString("name"), node.getString("category"), node.getString("class"), dependencies);
+	}
+
+	public String getId() {
+		return fId;
+	}
+
+	public String getName() {
+		return fName;
+	}
+
+	public String getCategory() {
+		return fCategory;
+	}
+
+	public String getClassName() {
+		return fClassName;
+	}
+
+	/**
+	 * Get the ids of modules this module depends on.
+	 *
+	 * @return module ids
+	 */
+	public List<String> getDependencies() {
+		return fDependencies;
+	}
+
+	public int getDocumentationErrors() {
+		return fDocumentationErrors;
+	}
+
+	public void setDocumentationErrors(final int documentationErrors) {
+		fDocumentationErrors = documentationErrors;
+	}
+}
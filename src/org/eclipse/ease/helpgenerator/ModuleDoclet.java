@@ -13,25 +13,42 @@ package org.eclipse.ease.helpgenerator;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.jar.Attributes;
-import java.util.jar.Manifest;
 import java.util.spi.ToolProvider;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 
 import com.sun.source.doctree.DocCommentTree;
 import com.sun.source.doctree.DocTree;
 import com.sun.source.util.DocTreeScanner;
 import com.sun.source.util.DocTrees;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePath;
 import jdk.javadoc.doclet.Reporter;
 import jdk.javadoc.doclet.Doclet;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.util.ElementScanner9;
+import javax.tools.Diagnostic;
 import javax.tools.DocumentationTool;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
 
 import jdk.javadoc.doclet.DocletEnvironment;
 
@@ -80,6 +97,27 @@ public class ModuleDoclet implements Doclet {
 	private static final Object OPTION_LINK_OFFLINE = "-linkoffline";
 	private static final Object OPTION_FAIL_ON_HTML_ERRORS = "-failOnHTMLError";
 	private static final Object OPTION_FAIL_ON_MISSING_DOCS = "-failOnMissingDocs";
+	private static final Object OPTION_FAIL_FAST = "-failFast";
+	private static final Object OPTION_ARCHIVE = "-archive";
+	private static final Object OPTION_REPORT = "-report";
+	private static final Object OPTION_REPORT_SLOWEST = "-reportSlowest";
+	private static final Object OPTION_MEMORY_BUDGET = "-memoryBudget";
+	private static final Object OPTION_BATCH_SIZE = "-batchSize";
+	private static final Object OPTION_VERIFY_REPRODUCIBLE = "-verifyReproducible";
+	private static final Object OPTION_WATCH = "-watch";
+	private static final Object OPTION_CHECK_ONLY = "-checkOnly";
+	private static final Object OPTION_GRAPH = "-graph";
+	private static final Object OPTION_FRAGMENT_CACHE = "-fragmentCache";
+	private static final Object OPTION_FRAGMENT_CACHE_SIZE = "-fragmentCacheSize";
+	private static final Object OPTION_PACKAGE_INDEX = "-packageIndex";
+	private static final Object OPTION_METADATA_STAMP = "-metadataStamp";
+	private static final Object OPTION_STALE_FILES = "-staleFiles";
+	private static final Object OPTION_MINIFY = "-minify";
+	private static final Object OPTION_HOVER_STORE = "-hoverStore";
+
+	private static final String STALE_FILES_KEEP = "keep";
+	private static final String STALE_FILES_REPORT = "report";
+	private static final String STALE_FILES_DELETE = "delete";
 
 	public static SourceVersion languageVersion() {
 		return SourceVersion.RELEASE_11;
@@ -101,6 +139,57 @@ public class ModuleDoclet implements Doclet {
 		if (OPTION_FAIL_ON_MISSING_DOCS.equals(option))
 			return 2;
 
+		if (OPTION_FAIL_FAST.equals(option))
+			return 2;
+
+		if (OPTION_ARCHIVE.equals(option))
+			return 2;
+
+		if (OPTION_REPORT.equals(option))
+			return 2;
+
+		if (OPTION_REPORT_SLOWEST.equals(option))
+			return 2;
+
+		if (OPTION_MEMORY_BUDGET.equals(option))
+			return 2;
+
+		if (OPTION_BATCH_SIZE.equals(option))
+			return 2;
+
+		if (OPTION_VERIFY_REPRODUCIBLE.equals(option))
+			return 2;
+
+		if (OPTION_WATCH.equals(option))
+			return 2;
+
+		if (OPTION_CHECK_ONLY.equals(option))
+			return 2;
+
+		if (OPTION_GRAPH.equals(option))
+			return 2;
+
+		if (OPTION_FRAGMENT_CACHE.equals(option))
+			return 2;
+
+		if (OPTION_FRAGMENT_CACHE_SIZE.equals(option))
+			return 2;
+
+		if (OPTION_PACKAGE_INDEX.equals(option))
+			return 2;
+
+		if (OPTION_METADATA_STAMP.equals(option))
+			return 2;
+
+		if (OPTION_STALE_FILES.equals(option))
+			return 2;
+
+		if (OPTION_MINIFY.equals(option))
+			return 2;
+
+		if (OPTION_HOVER_STORE.equals(option))
+			return 2;
+
 		if ("-encoding".equals(option))
 			return 2;
 
@@ -141,120 +230,402 @@ public class ModuleDoclet implements Doclet {
 		return true;
 	}
 
-	/** Maps module.class.name to module definition XML memento. */
-	private Map<String, IMemento> fModuleNodes;
+	/** Maps module.class.name to module definition, sorted by class name. */
+	private Map<String, ModuleDescriptor> fModuleNodes;
+
+	/** Line delimiter used for all generated files. */
+	static final String LINE_DELIMITER = "\n";
 	private File fRootFolder = null;
-	private final Collection<IMemento> fCategoryNodes = new HashSet<>();
+	private final Collection<CategoryDescriptor> fCategoryNodes = new ArrayList<>();
 
 	private LinkProvider fLinkProvider = new LinkProvider();
+
+	/** Inherited documentation lookup, shared by all modules of a run. */
+	private InheritedDocumentation fDocumentation;
+
+	/** Exported member lookup, shared by all modules of a run. */
+	private ExportedMembers fExportedMembers;
+
+	/** Script names of all generated modules, used to detect name clashes. */
+	private ScriptNameIndex fScriptNames;
 	private boolean fFailOnHTMLErrors = true;
 	private boolean fFailOnMissingDocs = false;
 
-	private Reporter reporter;
+	/** Stop generation after this amount of errors, 0 to process all modules first. */
+	private int fFailFast = 0;
+
+	/** Errors collected by fail-fast mode with the element they were reported for, <code>null</code> when not collecting. */
+	private List<Entry<String, Element>> fFailFastErrors = null;
+
+	/** Archive file name relative to the project root. When set, help content is written to this archive instead of the help folder. */
+	private String fArchiveName = null;
+	private IHelpOutput fOutput;
+
+	/** Location of the JSON performance report, <code>null</code> to skip the report. */
+	private File fReportFile = null;
+	private int fReportSlowest = 10;
+	private PerformanceReport fReport;
+
+	/** Heap budget for streaming generation, <code>null</code> when streaming mode is disabled. */
+	private MemoryBudget fMemoryBudget = null;
+	private int fBatchSize = 50;
+
+	/** Render pages without indentation, line delimiters and empty containers. */
+	private boolean fMinify = false;
+
+	/** Write method and constant blocks to a hover fragment store. */
+	private boolean fWriteHoverStore = false;
+
+	/** Hover fragments of the current run, <code>null</code> when no store is written. */
+	private HoverStoreWriter fHoverStore = null;
+
+	/** Generate content twice and fail when the results differ. */
+	private boolean fVerifyReproducible = false;
+
+	/** Module dependency and link graph of the current run. */
+	private DependencyGraph fGraph = new DependencyGraph();
+
+	/** Location of the exported dependency graph, <code>null</code> to keep it in memory only. */
+	private File fGraphFile = null;
+
+	/** Location of the metadata stamps, <code>null</code> to check plugin.xml, MANIFEST.MF and build.properties on every run. */
+	private File fMetadataStampFile = null;
+	private MetadataUpdater fMetadata = null;
+
+	/** Handling of generated files not written by the current run, one of keep, report or delete. */
+	private String fStaleFiles = STALE_FILES_KEEP;
 
-	private boolean process(final DocletEnvironment root) {
-		final Set<? extends Element> elements = root.getIncludedElements();
+	/** Folder of the persistent fragment cache, <code>null</code> to render all fragments. */
+	private File fFragmentCacheFolder = null;
+	private long fFragmentCacheSize = 64 * 1024 * 1024;
+	private FragmentCache fFragmentCache = null;
 
+	/** Keep running after generation and regenerate modules affected by source changes. */
+	private boolean fWatch = false;
+
+	/** Only validate documentation, do not write any files. */
+	private boolean fCheckOnly = false;
+
+	/** Suppress console messages, used for repeated generation runs. */
+	private boolean fSilent = false;
+
+	/** Reusable buffer for rendered pages. */
+	private final Utf8Buffer fPageBuffer = new Utf8Buffer(64 * 1024);
+
+	private Reporter reporter;
+
+	/**
+	 * Generate help for the given source elements. Inputs may come from a javadoc run or from a parse-only front end like {@link SourceFrontEnd}.
+	 *
+	 * @param docTrees
+	 *            doc comment access
+	 * @param elementUtils
+	 *            element utilities of the compilation
+	 * @param typeUtils
+	 *            type utilities of the compilation
+	 * @param elements
+	 *            elements to generate help for, only classes registered as modules are used
+	 * @param fileManager
+	 *            file manager resolving sources, used by watch mode to parse changed sources
+	 * @return <code>true</code> on success
+	 */
+	boolean process(final DocTrees docTrees, final Elements elementUtils, final Types typeUtils, final Set<? extends Element> elements,
+			final JavaFileManager fileManager) {
 		// write to output file
 		if (fRootFolder != null) {
-			try {
-				// create lookup table with module data
-				createModuleLookupTable();
+			fReport = new PerformanceReport(fReportSlowest);
+			StartupLauncher.recordStartup(fReport, fSilent);
+			fDocumentation = new InheritedDocumentation(docTrees, elementUtils, typeUtils);
+			fExportedMembers = new ExportedMembers(elementUtils, typeUtils);
 
-				// create HTML help files
-				boolean created = createHTMLFiles(root.getDocTrees(), elements);
+			if (fCheckOnly)
+				return check(docTrees, elements);
 
-				// create category TOCs
-				created |= createCategories();
+			try (IHelpOutput output = createOutput()) {
+				if (fFragmentCacheFolder != null)
+					fFragmentCache = new FragmentCache(fFragmentCacheFolder, fFragmentCacheSize);
 
-				if (created) {
-					// some files were created, update project, ...
+				final Set<String> tocFiles;
+				if (fVerifyReproducible)
+					tocFiles = generateReproducible(output, docTrees, elements);
+				else
+					tocFiles = generate(output, docTrees, elements);
+
+				// failed runs throw before, keeping the previous output
+				output.commit();
 
-					// create module TOC files
-					final Set<String> tocFiles = createModuleTOCFiles();
+				if (tocFiles != null) {
+					// some files were created, update project, ...
+					fMetadata = new MetadataUpdater(fRootFolder, fMetadataStampFile);
 
 					// update plugin.xml
-					updatePluginXML(fRootFolder, tocFiles);
+					final PerformanceReport.Measurement pluginXMLPhase = fReport.startPhase("pluginXML");
+					try {
+						fMetadata.updatePluginXML(tocFiles);
+					} finally {
+						pluginXMLPhase.end();
+					}
 
 					// update MANIFEST.MF
-					updateManifest(fRootFolder);
+					final PerformanceReport.Measurement manifestPhase = fReport.startPhase("manifest");
+					try {
+						fMetadata.updateManifest();
+					} finally {
+						manifestPhase.end();
+					}
 
 					// update build.properties
-					updateBuildProperties(fRootFolder);
+					final PerformanceReport.Measurement buildPropertiesPhase = fReport.startPhase("buildProperties");
+					try {
+						fMetadata.updateBuildProperties(output.getBuildInclude());
+					} finally {
+						buildPropertiesPhase.end();
+					}
+
+					fMetadata.writeStamps();
+					fReport.setCounter("metadataSkipped", fMetadata.getSkipped());
+					fReport.setCounter("metadataUpdated", fMetadata.getUpdated());
+
+					// remove pages and TOCs of removed or renamed modules
+					if ((!STALE_FILES_KEEP.equals(fStaleFiles)) && (output instanceof HelpFolderOutput)) {
+						final PerformanceReport.Measurement staleFilesPhase = fReport.startPhase("staleFiles");
+						try {
+							removeStaleFiles((HelpFolderOutput) output);
+						} finally {
+							staleFilesPhase.end();
+						}
+					}
+				}
+
+				if (fGraphFile != null) {
+					final PerformanceReport.Measurement dependencyGraphPhase = fReport.startPhase("dependencyGraph");
+					try {
+						fGraph.write(fGraphFile);
+					} finally {
+						dependencyGraphPhase.end();
+					}
 				}
 			} catch (final Exception e) {
 				e.printStackTrace();
 				return false;
+
+			} finally {
+				closeFragmentCache();
+				writeReport();
 			}
 
+			if (fWatch)
+				return watch(docTrees, typeUtils, elements, fileManager);
+
 			return true;
 		}
 
 		return false;
 	}
 
-	private static Collection<String> parsePackages(final InputStream inputStream) {
-		final Collection<String> packages = new HashSet<>();
+	/**
+	 * Generate help pages and TOC files.
+	 *
+	 * @param output
+	 *            target for generated content
+	 * @return names of created TOC files or <code>null</code> when no content was created
+	 * @throws IOException
+	 *             on file creation errors
+	 */
+	private Set<String> generate(final IHelpOutput output, final DocTrees docTrees, final Set<? extends Element> elements) throws IOException {
+		fOutput = output;
+		fScriptNames = new ScriptNameIndex();
+		fGraph = new DependencyGraph();
+		fHoverStore = fWriteHoverStore ? new HoverStoreWriter() : null;
+
+		// create lookup table with module data
+		final PerformanceReport.Measurement lookupTablePhase = fReport.startPhase("lookupTable");
+		try {
+			createModuleLookupTable();
+		} finally {
+			lookupTablePhase.end();
+		}
 
-		final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+		// create HTML help files
+		boolean created;
+		final PerformanceReport.Measurement htmlFilesPhase = fReport.startPhase("htmlFiles");
 		try {
-			String line = reader.readLine();
-			while (line != null) {
-				packages.add(line);
-				line = reader.readLine();
+			created = createHTMLFiles(docTrees, elements);
+		} finally {
+			htmlFilesPhase.end();
+		}
+
+		if (fMemoryBudget != null) {
+			fReport.setCounter("memoryBudgetPeakBytes", fMemoryBudget.getPeakUsage());
+			fReport.setCounter("memoryBudgetExceeded", fMemoryBudget.getExceededCount());
+		}
+
+		if (!fSilent)
+			reportScriptNameConflicts();
+
+		// create category and module TOCs
+		Set<String> tocFiles = null;
+		final PerformanceReport.Measurement tocFilesPhase = fReport.startPhase("tocFiles");
+		try {
+			final TocBuilder tocBuilder = new TocBuilder(fCategoryNodes, fModuleNodes.values());
+			if ((created) || (tocBuilder.hasCategories()))
+				tocFiles = tocBuilder.write(fOutput);
+		} finally {
+			tocFilesPhase.end();
+		}
+
+		// store method and constant blocks for help hovers
+		if ((created) && (fHoverStore != null)) {
+			final PerformanceReport.Measurement hoverStorePhase = fReport.startPhase("hoverStore");
+			try {
+				fHoverStore.write(fOutput);
+			} finally {
+				hoverStorePhase.end();
 			}
-		} catch (final IOException e) {
-			// could not read, ignore
+
+			fReport.setCounter("hoverFragments", fHoverStore.getEntryCount());
 		}
 
-		return packages;
+		return tocFiles;
 	}
 
-	private boolean createCategories() throws IOException {
-		boolean created = false;
+	/**
+	 * Generate help content twice and make sure both runs produce identical bytes before the content is written to the final output.
+	 *
+	 * @param output
+	 *            target for generated content
+	 * @return names of created TOC files or <code>null</code> when no content was created
+	 * @throws IOException
+	 *             when generation is not reproducible or on file creation errors
+	 */
+	private Set<String> generateReproducible(final IHelpOutput output, final DocTrees docTrees, final Set<? extends Element> elements) throws IOException {
+		final HelpMemoryOutput firstRun = new HelpMemoryOutput();
+		final Set<String> tocFiles = generate(firstRun, docTrees, elements);
+
+		// only the first run is measured, the second run renders without fragment cache to verify cached fragments too
+		final HelpMemoryOutput secondRun = new HelpMemoryOutput();
+		final PerformanceReport report = fReport;
+		final FragmentCache fragmentCache = fFragmentCache;
+		fReport = new PerformanceReport(0);
+		fFragmentCache = null;
+		fSilent = true;
+		try {
+			generate(secondRun, docTrees, elements);
+		} finally {
+			fSilent = false;
+			fFragmentCache = fragmentCache;
+			fReport = report;
+		}
 
-		for (final IMemento node : fCategoryNodes) {
-			final XMLMemento memento = XMLMemento.createWriteRoot("toc");
-			memento.putString("label", node.getString("name"));
-			memento.putString("link_to", createCategoryLink(node.getString("parent")));
+		final Collection<String> differences = firstRun.compare(secondRun);
+		if (!differences.isEmpty()) {
+			System.out.println("ERROR: generated help is not reproducible:");
+			for (final String difference : differences)
+				System.out.println("\t" + difference);
 
-			final IMemento topicNode = memento.createChild("topic");
-			topicNode.putString("label", node.getString("name"));
-			topicNode.putBoolean("sort", true);
-			topicNode.createChild("anchor").putString("id", "modules_anchor");
+			System.out.println("");
+			throw new IOException("Generated help is not reproducible");
+		}
+
+		firstRun.copyTo(output);
+		return tocFiles;
+	}
 
-			final File targetFile = getChild(getChild(fRootFolder, "help"), createCategoryFileName(node.getString("id")));
-			writeFile(targetFile, memento.toString());
-			created = true;
+	/**
+	 * Evict old cache entries and add cache statistics to the performance report.
+	 */
+	private void closeFragmentCache() {
+		if (fFragmentCache != null) {
+			fReport.setCounter("fragmentCacheHits", fFragmentCache.getHits());
+			fReport.setCounter("fragmentCacheMisses", fFragmentCache.getMisses());
+
+			try {
+				fFragmentCache.close();
+			} catch (final IOException e) {
+				System.out.println("ERROR: cannot clean up fragment cache " + fFragmentCacheFolder);
+			}
 		}
+	}
+
+	/**
+	 * Report or delete generated files that were not written by the current run.
+	 */
+	private void removeStaleFiles(final HelpFolderOutput output) throws IOException {
+		final boolean dryRun = STALE_FILES_REPORT.equals(fStaleFiles);
+		final List<String> staleFiles = output.removeStaleFiles(dryRun);
+
+		fReport.setCounter("staleFiles", staleFiles.size());
+		fReport.setCounter("staleBytes", output.getStaleBytes());
 
-		return created;
+		if ((!fSilent) && (!staleFiles.isEmpty())) {
+			if (dryRun) {
+				for (final String name : staleFiles)
+					System.out.println("WARNING: stale help file help/" + name);
+
+				System.out.println("Found " + staleFiles.size() + " stale help file(s) with " + (output.getStaleBytes() / 1024) + " kB, use "
+						+ OPTION_STALE_FILES + " " + STALE_FILES_DELETE + " to remove them");
+
+			} else
+				System.out.println("Removed " + staleFiles.size() + " stale help file(s) with " + (output.getStaleBytes() / 1024) + " kB");
+		}
 	}
 
-	private static String extractCategoryName(final String categoryId) {
-		if (categoryId != null) {
-			final int index = categoryId.indexOf(".category.");
-			if (index != -1)
-				return categoryId.substring(index + ".category.".length());
+	private void writeReport() {
+		if (fReportFile != null) {
+			try {
+				fReport.write(fReportFile);
+			} catch (final IOException e) {
+				System.out.println("Error: cannot write performance report to " + fReportFile);
+			}
 		}
+	}
 
-		return null;
+	private IHelpOutput createOutput() throws IOException {
+		if (fArchiveName != null)
+			return new HelpArchiveOutput(getChild(fRootFolder, fArchiveName));
+
+		return new HelpFolderOutput(getChild(fRootFolder, "help"));
 	}
 
-	private static String createCategoryLink(final String categoryId) {
-		String pluginID = "org.eclipse.ease.help";
-		if (categoryId != null) {
-			final int index = categoryId.indexOf(".category.");
-			if (index != -1)
-				pluginID = categoryId.substring(0, index);
+	/**
+	 * Register an external documentation site with the packages listed in a package-list file.
+	 *
+	 * @param site
+	 *            documentation base URL
+	 * @param location
+	 *            location of the package-list, used for reporting
+	 * @param inputStream
+	 *            package-list content
+	 */
+	private void registerPackageList(final String site, final String location, final InputStream inputStream) {
+		final GeneratorEvents.PackageListLoadEvent event = new GeneratorEvents.PackageListLoadEvent();
+		event.begin();
+
+		final Collection<String> packages = parsePackages(inputStream);
+		fLinkProvider.registerAddress(site, packages);
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.site = site;
+			event.location = location;
+			event.packageCount = packages.size();
+			event.success = true;
+			event.commit();
 		}
+	}
 
-		return "../" + pluginID + "/help/" + createCategoryFileName(categoryId) + "#modules_anchor";
+	private static Collection<String> parsePackages(final InputStream inputStream) {
+		try {
+			return PackageIndex.readPackageList(inputStream);
+		} catch (final IOException e) {
+			// could not read, ignore
+			return Collections.emptySet();
+		}
 	}
 
-	private static String createCategoryFileName(final String categoryId) {
-		final String category = extractCategoryName(categoryId);
-		return (category != null) ? "category_" + category + ".xml" : "reference.xml";
+	private File getPluginFile(final File rootFolder) {
+		final File pluginFile = getChild(rootFolder, "plugin.xml");
+		return (pluginFile.exists()) ? pluginFile : getChild(rootFolder, "fragment.xml");
 	}
 
 	private File getChild(final File folder, final String name) {
@@ -266,193 +637,527 @@ public class ModuleDoclet implements Doclet {
 		return null;
 	}
 
-	private void updateManifest(final File rootFolder) throws IOException {
-		final File manifestFile = getChild(getChild(rootFolder, "META-INF"), "MANIFEST.MF");
+	public static String createHTMLFileName(final String moduleID) {
+		return "module_" + escape(moduleID) + ".html";
+	}
+
+	/**
+	 * Check whether a help folder file name follows the naming scheme of generated module pages, TOC files and the hover fragment store.
+	 *
+	 * @param name
+	 *            file name
+	 * @return <code>true</code> for names the generator creates
+	 */
+	public static boolean isGeneratedFile(final String name) {
+		return ((name.startsWith("module_")) && (name.endsWith(".html"))) || ((name.startsWith("category_")) && (name.endsWith(".xml")))
+				|| ((name.startsWith("modules_")) && (name.endsWith(".xml"))) || ("reference.xml".equals(name)) || (HoverStore.FILE_NAME.equals(name));
+	}
 
-		final Manifest manifest = new Manifest();
-		manifest.read(new FileInputStream(manifestFile));
+	/**
+	 * Create HTML help pages for module classes.
+	 *
+	 * @param classes
+	 * @return <code>true</code> when at least 1 HTML file was created
+	 * @throws Exception
+	 *             on file creation errors
+	 */
+	private boolean createHTMLFiles(final DocTrees docTree,
+                                    final Set<? extends Element> classes) throws IOException {
+		boolean createdFiles = false;
+		boolean documentationErrors = false;
+		boolean invalidFileContent = false;
 
-		final Attributes mainAttributes = manifest.getMainAttributes();
-		final String require = mainAttributes.getValue("Require-Bundle");
+		final List<Element> moduleClasses = getModuleClasses(classes);
 
-		if ((require == null) || (require.isEmpty()))
-			mainAttributes.putValue("Require-Bundle", "org.eclipse.help;bundle-version=\"[3.5.0,4.0.0)\"");
+		if (fFailFast > 0)
+			fFailFastErrors = new ArrayList<>();
 
-		else if (!require.contains("org.eclipse.help"))
-			mainAttributes.putValue("Require-Bundle", "org.eclipse.help;bundle-version=\"[3.5.0,4.0.0)\"," + require);
+		try {
+			int processed = 0;
+			for (final Element clazz : moduleClasses) {
+				// class found to create help for
+				final ModuleDescriptor moduleDefinition = fModuleNodes.get(clazz.toString());
 
-		else
-			// manifest contains reference to org.eclipse.help, bail out
-			return;
+				invalidFileContent |= !createHTMLFile(docTree, clazz, moduleDefinition);
+				documentationErrors |= moduleDefinition.getDocumentationErrors() > 0;
+				createdFiles = true;
+				processed++;
 
-		final FileOutputStream out = new FileOutputStream(manifestFile);
-		manifest.write(out);
-		out.close();
-	}
+				if (isFailFastLimitReached()) {
+					reportFailFastErrors();
+					throw new IOException("Generation stopped after " + fFailFastErrors.size() + " error(s), " + (moduleClasses.size() - processed)
+							+ " module(s) skipped");
+				}
 
-	private void updateBuildProperties(final File rootFolder) throws IOException {
-		final File buildFile = getChild(rootFolder, "build.properties");
+				// streaming mode: flush and respect memory budget after each batch
+				if ((fMemoryBudget != null) && ((processed % fBatchSize) == 0))
+					fMemoryBudget.checkpoint(fOutput);
+			}
 
-		final Properties properties = new Properties();
-		properties.load(new FileInputStream(buildFile));
-		final String property = properties.getProperty("bin.includes");
-		if (!property.contains("help/")) {
-			if (property.trim().isEmpty())
-				properties.setProperty("bin.includes", "help/");
-			else
-				properties.setProperty("bin.includes", "help/," + property.trim());
+			// less errors than the limit, still report them
+			if (fFailFastErrors != null)
+				reportFailFastErrors();
 
-			final FileOutputStream out = new FileOutputStream(buildFile);
-			properties.store(out, "");
-			out.close();
+		} finally {
+			fFailFastErrors = null;
 		}
+
+		if ((fFailOnMissingDocs) && (documentationErrors))
+			throw new IOException("Documentation is not complete");
+
+		if ((fFailOnHTMLErrors) && (invalidFileContent))
+			throw new IOException("Documentation invalid");
+
+		return createdFiles;
 	}
 
-	private void updatePluginXML(final File rootFolder, final Collection<String> tocs) throws Exception {
-		final HashSet<String> toDo = new HashSet<>(tocs);
+	/**
+	 * Read module definitions from plugin.xml.
+	 *
+	 * @return class names of all registered modules
+	 */
+	Set<String> getModuleClassNames() {
+		if (fRootFolder == null)
+			return Collections.emptySet();
 
-		File pluginFile = getChild(rootFolder, "plugin.xml");
-		if (!pluginFile.exists())
-			pluginFile = getChild(rootFolder, "fragment.xml");
+		createModuleLookupTable();
+		return fModuleNodes.keySet();
+	}
 
-		final XMLMemento memento = XMLMemento.createReadRoot(new InputStreamReader(new FileInputStream(pluginFile)));
-		for (final IMemento extensionNode : memento.getChildren("extension")) {
-			final String extensionPoint = extensionNode.getString("point");
-			if ("org.eclipse.help.toc".equals(extensionPoint)) {
-				// a help topic is already registered
-				for (final IMemento tocNode : extensionNode.getChildren("toc")) {
-					final String tocLocation = tocNode.getString("file");
-					if (tocLocation.length() > 5)
-						toDo.remove(tocLocation.substring(5));
-				}
-			}
+	/**
+	 * Get classes registered in our modules lookup table, in a stable order to get reproducible output.
+	 */
+	private List<Element> getModuleClasses(final Set<? extends Element> classes) {
+		final List<Element> moduleClasses = new ArrayList<>();
+		for (final Element clazz : classes) {
+			if (fModuleNodes.containsKey(clazz.toString()))
+				moduleClasses.add(clazz);
 		}
+		moduleClasses.sort(Comparator.comparing(Element::toString));
+
+		return moduleClasses;
+	}
 
-		for (final String fileLocation : toDo) {
-			// some TOCs not registered yet
-			final IMemento extensionNode = memento.createChild("extension");
-			extensionNode.putString("point", "org.eclipse.help.toc");
-			final IMemento tocNode = extensionNode.createChild("toc");
-			tocNode.putString("file", "help/" + fileLocation);
-			tocNode.putBoolean("primary", false);
+	/**
+	 * Validate module documentation without writing any files. Pages are not rendered: documentation content is extracted with the same checks as in
+	 * generation mode and each content block is verified to be well formed. Issues are printed to the console as JSON.
+	 *
+	 * @return <code>true</code> when no errors were found
+	 */
+	private boolean check(final DocTrees docTrees, final Set<? extends Element> elements) {
+		createModuleLookupTable();
+
+		final DocumentationCheck check = new DocumentationCheck(docTrees);
+		for (final Element clazz : getModuleClasses(elements)) {
+			final ModuleDescriptor moduleDefinition = fModuleNodes.get(clazz.toString());
+			final HTMLWriter htmlWriter = new HTMLWriter(clazz, fLinkProvider, moduleDefinition.getDependencies(), docTrees, fDocumentation, fExportedMembers);
+			final List<Entry<Element, String>> content = htmlWriter.checkContents();
+			check.addModule();
+
+			for (final Entry<String, Element> error : htmlWriter.getDocumentationErrorLocations().entrySet())
+				check.addIssue(moduleDefinition.getId(), DocumentationCheck.MISSING_DOCUMENTATION, fFailOnMissingDocs, error.getValue(), error.getKey());
+
+			// parse all blocks at once, locate problems only for invalid modules
+			final StringBuilder allContent = new StringBuilder();
+			for (final Entry<Element, String> block : content)
+				allContent.append("<div>").append(block.getValue()).append("</div>");
+
+			if (DocumentationCheck.verifyMarkup(allContent.toString()) != null) {
+				for (final Entry<Element, String> block : content) {
+					final String problem = DocumentationCheck.verifyMarkup(block.getValue());
+					if (problem != null)
+						check.addIssue(moduleDefinition.getId(), DocumentationCheck.INVALID_CONTENT, fFailOnHTMLErrors, block.getKey(), problem);
+				}
+			}
 
+			if ((fFailFast > 0) && (check.getErrorCount() >= fFailFast))
+				break;
 		}
 
-		if (!toDo.isEmpty())
-			// we had to modify the file
-			writeFile(pluginFile, memento.toString().replace("&#x0A;", "\n"));
+		System.out.print(check.toJson());
+		return check.getErrorCount() == 0;
 	}
 
-	private Set<String> createModuleTOCFiles() throws IOException {
-		final Map<String, IMemento> tocDefinitions = new HashMap<>();
+	/**
+	 * Create the HTML help page for a single module class. Documentation errors are reported and their count is stored in the module descriptor.
+	 *
+	 * @return <code>true</code> when the created content is valid
+	 * @throws IOException
+	 *             on file creation errors
+	 */
+	private boolean createHTMLFile(final DocTrees docTree, final Element clazz, final ModuleDescriptor moduleDefinition) throws IOException {
+		boolean valid = false;
 
-		// create categories
-		for (final IMemento categoryDefinition : fCategoryNodes) {
-			final XMLMemento memento = XMLMemento.createWriteRoot("toc");
-			memento.putString("label", categoryDefinition.getString("name"));
-			memento.putString("link_to", createCategoryLink(categoryDefinition.getString("parent")));
+		final PerformanceReport.Measurement measurement = fReport.startModule(moduleDefinition.getId());
+		try {
+			final GeneratorEvents.ModuleRenderEvent renderEvent = new GeneratorEvents.ModuleRenderEvent();
+			renderEvent.begin();
+
+			final HTMLWriter htmlWriter = new HTMLWriter(clazz, fLinkProvider, moduleDefinition.getDependencies(), docTree, fDocumentation, fExportedMembers);
+			htmlWriter.setFragmentCache(fFragmentCache);
+			htmlWriter.setMinify(fMinify);
+			if (fHoverStore != null) {
+				fHoverStore.startModule(moduleDefinition.getId());
+				htmlWriter.setHoverStore(fHoverStore, moduleDefinition.getId());
+			}
+			final Utf8Buffer content = fPageBuffer;
+			content.reset();
+			final Set<String> moduleLinks = new TreeSet<>();
+			fLinkProvider.recordModuleLinks(moduleLinks);
+			try {
+				htmlWriter.writeContents(moduleDefinition.getName(), content);
+			} finally {
+				fLinkProvider.recordModuleLinks(null);
+			}
 
-			final IMemento topicNode = memento.createChild("topic");
-			topicNode.putString("label", categoryDefinition.getString("name"));
-			topicNode.putBoolean("sort", true);
+			for (final ExecutableElement method : fExportedMembers.getExportedMethods((TypeElement) clazz))
+				fScriptNames.register(moduleDefinition.getId(), method.getSimpleName().toString(), fExportedMembers.getAliases(method));
 
-			topicNode.createChild("anchor").putString("id", "modules_anchor");
-			tocDefinitions.put(createCategoryFileName(categoryDefinition.getString("id")), memento);
-		}
+			updateGraph(moduleDefinition, (TypeElement) clazz, moduleLinks);
+
+			renderEvent.end();
+			if (renderEvent.shouldCommit()) {
+				renderEvent.moduleId = moduleDefinition.getId();
+				renderEvent.className = clazz.toString();
+				renderEvent.methodCount = htmlWriter.getExportedMethodCount();
+				renderEvent.contentLength = content.length();
+				renderEvent.documentationErrors = htmlWriter.getDocumentationErrors().size();
+				renderEvent.commit();
+			}
 
-		// create modules
-		if (!fModuleNodes.isEmpty()) {
+			moduleDefinition.setDocumentationErrors(htmlWriter.getDocumentationErrors().size());
+			if ((fFailFastErrors != null) && (fFailOnMissingDocs)) {
+				for (final Entry<String, Element> error : htmlWriter.getDocumentationErrorLocations().entrySet())
+					fFailFastErrors.add(new AbstractMap.SimpleEntry<>("missing documentation content: " + error.getKey(), error.getValue()));
 
-			for (final IMemento moduleDefinition : fModuleNodes.values()) {
-				final String categoryID = moduleDefinition.getString("category");
-				final String fileName = createCategoryFileName(categoryID).replace("category_", "modules_");
+				// do not write the page, no need to verify it
+				if (isFailFastLimitReached())
+					return true;
 
-				IMemento memento;
-				if (tocDefinitions.containsKey(fileName))
-					memento = tocDefinitions.get(fileName);
+			} else if ((!htmlWriter.getDocumentationErrors().isEmpty()) && (!fSilent)) {
+				// print errors
+				System.out.println((fFailOnMissingDocs ? "ERROR" : "WARNING") + ": missing documentation content for " + clazz + ":");
+				for (final String errorMessage : htmlWriter.getDocumentationErrors())
+					System.out.println("\t" + errorMessage);
 
-				else {
-					memento = XMLMemento.createWriteRoot("toc");
-					memento.putString("label", "Modules");
-					memento.putString("link_to", createCategoryLink(categoryID));
+				System.out.println("");
+			}
 
-					tocDefinitions.put(fileName, memento);
-				}
+			final GeneratorEvents.VerifyContentEvent verifyEvent = new GeneratorEvents.VerifyContentEvent();
+			verifyEvent.moduleId = moduleDefinition.getId();
+			verifyEvent.className = clazz.toString();
+			verifyEvent.contentLength = content.length();
+			verifyEvent.begin();
 
-				final IMemento topicNode = memento.createChild("topic");
-				topicNode.putString("href", "help/" + createHTMLFileName(moduleDefinition.getString("id")));
-				topicNode.putString("label", moduleDefinition.getString("name"));
+			try {
+				verifyContent(content);
+				verifyEvent.valid = true;
+				valid = true;
+			} catch (final Exception e) {
+				if ((fFailFastErrors != null) && (fFailOnHTMLErrors)) {
+					fFailFastErrors.add(new AbstractMap.SimpleEntry<>("invalid file content: " + e.getMessage(), clazz));
+
+				} else if (!fSilent) {
+					System.out.println((fFailOnHTMLErrors ? "ERROR" : "WARNING") + ": invalid file content for " + clazz + ":");
+					System.out.println("\t" + e.getMessage());
+					System.out.println("");
+				}
 			}
-		}
+			verifyEvent.commit();
 
-		for (final Entry<String, IMemento> entry : tocDefinitions.entrySet()) {
-			final File targetFile = getChild(getChild(fRootFolder, "help"), entry.getKey());
-			writeFile(targetFile, entry.getValue().toString());
+			// write document
+			if (!isFailFastLimitReached())
+				fOutput.write(createHTMLFileName(moduleDefinition.getId()), content);
+		} finally {
+			measurement.end();
 		}
 
-		return tocDefinitions.keySet();
+		return valid;
 	}
 
-	public static String createHTMLFileName(final String moduleID) {
-		return "module_" + escape(moduleID) + ".html";
+	private boolean isFailFastLimitReached() {
+		return (fFailFastErrors != null) && (fFailFastErrors.size() >= fFailFast);
 	}
 
 	/**
-	 * Create HTML help pages for module classes.
+	 * Report errors collected in fail-fast mode at the source positions of their elements.
+	 */
+	private void reportFailFastErrors() {
+		for (final Entry<String, Element> error : fFailFastErrors)
+			reporter.print(Diagnostic.Kind.ERROR, error.getValue(), error.getKey());
+	}
+
+	/**
+	 * Keep the session alive and regenerate module pages whenever their sources or plugin.xml change. Only modules depending on changed compilation units
+	 * are parsed and rendered again. TOCs are rewritten when module names or categories change. Runs until the process gets terminated.
 	 *
-	 * @param classes
-	 * @return <code>true</code> when at least 1 HTML file was created
-	 * @throws Exception
-	 *             on file creation errors
+	 * @return <code>false</code> when watching could not be started
 	 */
-	private boolean createHTMLFiles(final DocTrees docTree,
-                                    final Set<? extends Element> classes) throws IOException {
-		boolean createdFiles = false;
-		boolean documentationErrors = false;
-		boolean invalidFileContent = false;
+	private boolean watch(final DocTrees docTrees, final Types typeUtils, final Set<? extends Element> elements, final JavaFileManager fileManager) {
+		if (fArchiveName != null) {
+			System.out.println("ERROR: watch mode needs the help folder output and cannot be combined with " + OPTION_ARCHIVE);
+			return false;
+		}
 
-		for (final Element clazz : classes) {
-            // only add classes which are registered in our modules lookup table
-			if (fModuleNodes.containsKey(clazz.toString())) {
-				// class found to create help for
-				final HTMLWriter htmlWriter = new HTMLWriter(clazz, fLinkProvider, fModuleNodes.get(clazz.toString()).getChildren("dependency"), docTree);
-				final String content = htmlWriter.createContents(fModuleNodes.get(clazz.toString()).getString("name"));
+		final Path pluginFile = getPluginFile(fRootFolder).toPath().toAbsolutePath().normalize();
+		try (SourceWatcher watcher = new SourceWatcher()) {
+			watcher.watch(pluginFile);
+			for (final Element element : elements) {
+				if ((element instanceof TypeElement) && (fModuleNodes.containsKey(element.toString())))
+					watcher.track(element.toString(), getSourceFiles(docTrees, typeUtils, (TypeElement) element));
+			}
 
-				if (!htmlWriter.getDocumentationErrors().isEmpty()) {
-					documentationErrors = true;
+			System.out.println("Watching module sources for changes, press Ctrl+C to stop");
+
+			while (true) {
+				final Set<Path> changes = watcher.awaitChanges();
+				final long start = System.nanoTime();
+
+				final Set<String> affected = new TreeSet<>();
+				final Set<String> changedModules = new TreeSet<>();
+				boolean tocChanged = false;
+				for (final Path file : changes) {
+					if (pluginFile.equals(file)) {
+						// module definitions changed, rerender modified modules only
+						final Map<String, ModuleDescriptor> previousNodes = fModuleNodes;
+						final Map<String, String> previousModules = getModuleSignatures();
+						final String previousToc = getTocSignature();
+
+						createModuleLookupTable();
+
+						final Map<String, String> modules = getModuleSignatures();
+						for (final Entry<String, String> module : modules.entrySet()) {
+							if (!module.getValue().equals(previousModules.get(module.getKey()))) {
+								affected.add(module.getKey());
+								changedModules.add(fModuleNodes.get(module.getKey()).getId());
+							}
+						}
 
-					// print errors
-					System.out.println((fFailOnMissingDocs ? "ERROR" : "WARNING") + ": missing documentation content for " + clazz + ":");
-					for (final String errorMessage : htmlWriter.getDocumentationErrors())
-						System.out.println("\t" + errorMessage);
+						// renamed or removed modules invalidate pages referring to their previous id
+						for (final Entry<String, ModuleDescriptor> module : previousNodes.entrySet()) {
+							if (!previousModules.get(module.getKey()).equals(modules.get(module.getKey()))) {
+								changedModules.add(module.getValue().getId());
+								fGraph.removeModule(module.getValue().getId());
+							}
+						}
 
-					System.out.println("");
+						tocChanged = !previousToc.equals(getTocSignature());
+
+					} else
+						affected.addAll(watcher.getDependents(file));
 				}
+				affected.retainAll(fModuleNodes.keySet());
 
-				try {
-					verifyContent(content);
-				} catch (final Exception e) {
-					System.out.println((fFailOnHTMLErrors ? "ERROR" : "WARNING") + ": invalid file content for " + clazz + ":");
-					System.out.println("\t" + e.getMessage());
-					System.out.println("");
+				if ((!affected.isEmpty()) || (tocChanged)) {
+					int regenerated = affected.size();
+					try (IHelpOutput output = createOutput()) {
+						fOutput = output;
+
+						final Map<String, String> previousSignatures = new HashMap<>();
+						for (final String className : affected)
+							previousSignatures.put(className, fGraph.getSignature(fModuleNodes.get(className).getId()));
+
+						regenerate(fileManager, watcher, affected);
+
+						for (final String className : affected) {
+							final String moduleId = fModuleNodes.get(className).getId();
+							if (!Objects.equals(previousSignatures.get(className), fGraph.getSignature(moduleId)))
+								changedModules.add(moduleId);
+						}
+
+						// pages referring to changed modules, directly or transitively
+						final Set<String> dependents = new TreeSet<>();
+						final Set<String> invalidated = fGraph.getInvalidated(changedModules);
+						for (final ModuleDescriptor module : fModuleNodes.values()) {
+							if ((invalidated.contains(module.getId())) && (!affected.contains(module.getClassName())))
+								dependents.add(module.getClassName());
+						}
+
+						if (!dependents.isEmpty()) {
+							regenerate(fileManager, watcher, dependents);
+							regenerated += dependents.size();
+						}
 
-					invalidFileContent = true;
+						if (fHoverStore != null) {
+							final Set<String> moduleIds = new HashSet<>();
+							for (final ModuleDescriptor module : fModuleNodes.values())
+								moduleIds.add(module.getId());
+
+							fHoverStore.retainModules(moduleIds);
+							fHoverStore.write(output);
+						}
+
+						if (tocChanged) {
+							if (fMetadata == null)
+								fMetadata = new MetadataUpdater(fRootFolder, fMetadataStampFile);
+
+							fMetadata.updatePluginXML(new TocBuilder(fCategoryNodes, fModuleNodes.values()).write(output));
+							fMetadata.writeStamps();
+						}
+
+						output.commit();
+					}
+
+					if (fGraphFile != null)
+						fGraph.write(fGraphFile);
+
+					System.out.println("Regenerated " + regenerated + " module(s)" + (tocChanged ? " and TOCs" : "") + " in "
+							+ ((System.nanoTime() - start) / 1000000) + " ms");
 				}
+			}
 
-				// write document
-				final File targetFile = getChild(getChild(fRootFolder, "help"), createHTMLFileName(fModuleNodes.get(clazz.toString()).getString("id")));
-				writeFile(targetFile, content);
-				createdFiles = true;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return true;
+
+		} catch (final Exception e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Parse the sources of the given module classes and render their help pages. Compilation units are resolved with the file manager of the initial run,
+	 * so the original source and class paths apply. Sources are parsed only, method bodies are not attributed.
+	 */
+	private void regenerate(final JavaFileManager fileManager, final SourceWatcher watcher, final Set<String> classNames) throws IOException {
+		final Collection<File> sourceFiles = new LinkedHashSet<>();
+		final List<JavaFileObject> compilationUnits = new ArrayList<>();
+		for (final String className : classNames) {
+			final Collection<Path> sources = watcher.getSources(className);
+			if (!sources.isEmpty()) {
+				for (final Path source : sources)
+					sourceFiles.add(source.toFile());
+
+			} else {
+				// module not tracked yet, eg newly registered in plugin.xml
+				final JavaFileObject source = fileManager.getJavaFileForInput(StandardLocation.SOURCE_PATH, className, JavaFileObject.Kind.SOURCE);
+				if (source != null)
+					compilationUnits.add(source);
+				else
+					System.out.println("WARNING: cannot locate source of " + className);
 			}
 		}
 
-		if ((fFailOnMissingDocs) && (documentationErrors))
-			throw new IOException("Documentation is not complete");
+		if (fileManager instanceof StandardJavaFileManager) {
+			for (final JavaFileObject source : ((StandardJavaFileManager) fileManager).getJavaFileObjectsFromFiles(sourceFiles))
+				compilationUnits.add(source);
+		}
 
-		if ((fFailOnHTMLErrors) && (invalidFileContent))
-			throw new IOException("Documentation invalid");
+		final JavacTask task = SourceFrontEnd.parse(fileManager, Collections.emptyList(), compilationUnits);
 
-		return createdFiles;
+		final DocTrees docTrees = DocTrees.instance(task);
+		fDocumentation = new InheritedDocumentation(docTrees, task.getElements(), task.getTypes());
+		fExportedMembers = new ExportedMembers(task.getElements(), task.getTypes());
+
+		for (final String className : classNames) {
+			final TypeElement clazz = task.getElements().getTypeElement(className);
+			if (clazz != null) {
+				createHTMLFile(docTrees, clazz, fModuleNodes.get(className));
+				watcher.track(className, getSourceFiles(docTrees, task.getTypes(), clazz));
+			}
+		}
+	}
+
+	/**
+	 * Get the compilation units a module class depends on: its own source followed by the sources of all its supertypes.
+	 */
+	private static Collection<Path> getSourceFiles(final DocTrees docTrees, final Types types, final TypeElement type) {
+		final Collection<Path> files = new LinkedHashSet<>();
+		collectSourceFiles(docTrees, types, type, files, new HashSet<>());
+		return files;
+	}
+
+	private static void collectSourceFiles(final DocTrees docTrees, final Types types, final TypeElement type, final Collection<Path> files,
+			final Set<TypeElement> visited) {
+		if (visited.add(type)) {
+			final TreePath path = docTrees.getPath(type);
+			if ((path != null) && ("file".equals(path.getCompilationUnit().getSourceFile().toUri().getScheme())))
+				files.add(Paths.get(path.getCompilationUnit().getSourceFile().toUri()));
+
+			for (final TypeMirror superType : types.directSupertypes(type.asType())) {
+				final Element element = types.asElement(superType);
+				if (element instanceof TypeElement)
+					collectSourceFiles(docTrees, types, (TypeElement) element, files, visited);
+			}
+		}
+	}
+
+	/**
+	 * Get a signature of each module definition to detect modified modules.
+	 *
+	 * @return signatures by module class name
+	 */
+	private Map<String, String> getModuleSignatures() {
+		final Map<String, String> signatures = new HashMap<>();
+		for (final Entry<String, ModuleDescriptor> entry : fModuleNodes.entrySet()) {
+			final ModuleDescriptor module = entry.getValue();
+			signatures.put(entry.getKey(), module.getId() + "|" + module.getName() + "|" + module.getCategory() + "|" + module.getDependencies());
+		}
+
+		return signatures;
+	}
+
+	/**
+	 * Get a signature of all data rendered into TOC files: module ids, names and categories as well as category definitions.
+	 */
+	private String getTocSignature() {
+		final StringBuilder signature = new StringBuilder();
+		for (final ModuleDescriptor module : fModuleNodes.values())
+			signature.append(module.getId()).append('|').append(module.getName()).append('|').append(module.getCategory()).append('\n');
+
+		for (final CategoryDescriptor category : fCategoryNodes)
+			signature.append(category.getId()).append('|').append(category.getName()).append('|').append(category.getParent()).append('\n');
+
+		return signature.toString();
+	}
+
+	/**
+	 * Print script names that are provided by more than one module method. Such modules cannot be loaded together without one function hiding the other.
+	 */
+	private void reportScriptNameConflicts() {
+		final Map<String, Set<String>> conflicts = fScriptNames.getConflicts();
+		if (!conflicts.isEmpty()) {
+			System.out.println("WARNING: conflicting script names:");
+			for (final Entry<String, Set<String>> conflict : conflicts.entrySet())
+				System.out.println("\t" + conflict.getKey() + " provided by " + String.join(", ", conflict.getValue()));
+
+			System.out.println("");
+		}
+	}
+
+	/**
+	 * Record a rendered module in the dependency graph: its signature and all modules its page refers to.
+	 *
+	 * @param moduleLinks
+	 *            ids of modules referenced by {&#64;module} links on the page
+	 */
+	private void updateGraph(final ModuleDescriptor module, final TypeElement clazz, final Collection<String> moduleLinks) {
+		// signature covers everything other pages may link to
+		final StringBuilder signature = new StringBuilder(module.getName());
+		for (final ExecutableElement method : fExportedMembers.getExportedMethods(clazz))
+			signature.append("|").append(method.getSimpleName()).append(fExportedMembers.getAliases(method));
+		for (final VariableElement field : fExportedMembers.getExportedFields(clazz))
+			signature.append("|").append(field.getSimpleName());
+
+		fGraph.resetModule(module.getId(), DependencyGraph.hash(signature.toString()));
+
+		for (final String dependency : module.getDependencies())
+			fGraph.addEdge(module.getId(), dependency, DependencyGraph.Kind.DEPENDENCY);
+
+		for (final String link : moduleLinks)
+			fGraph.addEdge(module.getId(), link, DependencyGraph.Kind.LINK);
+
+		// inherited methods are documented on the subclass page
+		TypeMirror superClass = clazz.getSuperclass();
+		while (superClass instanceof DeclaredType) {
+			final TypeElement superElement = (TypeElement) ((DeclaredType) superClass).asElement();
+			final ModuleDescriptor parent = fModuleNodes.get(superElement.getQualifiedName().toString());
+			if (parent != null)
+				fGraph.addEdge(module.getId(), parent.getId(), DependencyGraph.Kind.INHERITANCE);
+
+			superClass = superElement.getSuperclass();
+		}
 	}
 
 	/**
@@ -461,12 +1166,15 @@ public class ModuleDoclet implements Doclet {
 	 * @throws Exception
 	 *             when content is not well formed
 	 */
-	private void verifyContent(String content) throws Exception {
+	private void verifyContent(Utf8Buffer content) throws Exception {
 		// try to read content into an XMLMemento
-		XMLMemento.createReadRoot(new StringReader(content));
+		XMLMemento.createReadRoot(new InputStreamReader(content.asInputStream(), StandardCharsets.UTF_8));
 	}
 
-	private static void writeFile(final File file, final String data) throws IOException {
+	static void writeFile(final File file, final String data) throws IOException {
+		final GeneratorEvents.FileWriteEvent event = new GeneratorEvents.FileWriteEvent();
+		event.begin();
+
 		if (!file.getParentFile().exists())
 			file.getParentFile().mkdirs();
 
@@ -474,9 +1182,37 @@ public class ModuleDoclet implements Doclet {
 		if (!file.exists())
 			file.createNewFile();
 
-		final FileWriter writer = new FileWriter(file);
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
 		writer.write(data);
 		writer.close();
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.bytesWritten = file.length();
+			event.commit();
+		}
+	}
+
+	static void writeFile(final File file, final Utf8Buffer data) throws IOException {
+		final GeneratorEvents.FileWriteEvent event = new GeneratorEvents.FileWriteEvent();
+		event.begin();
+
+		if (!file.getParentFile().exists())
+			file.getParentFile().mkdirs();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer content = data.asByteBuffer();
+			while (content.hasRemaining())
+				channel.write(content);
+		}
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.bytesWritten = data.length();
+			event.commit();
+		}
 	}
 
 	private static String escape(final String data) {
@@ -484,22 +1220,22 @@ public class ModuleDoclet implements Doclet {
 	}
 
 	private void createModuleLookupTable() {
-		fModuleNodes = new HashMap<>();
+		fModuleNodes = new TreeMap<>();
+		fCategoryNodes.clear();
 
 		// read plugin.xml
-		File pluginXML = getChild(fRootFolder, "plugin.xml");
-		if (!pluginXML.exists())
-			pluginXML = getChild(fRootFolder, "fragment.xml");
+		final File pluginXML = getPluginFile(fRootFolder);
 
 		try {
 			final IMemento root = XMLMemento.createReadRoot(new InputStreamReader(new FileInputStream(pluginXML)));
 			for (final IMemento extensionNode : root.getChildren("extension")) {
 				if ("org.eclipse.ease.modules".equals(extensionNode.getString("point"))) {
+					// keep compact descriptors only, the plugin.xml document is not needed any longer
 					for (final IMemento instanceNode : extensionNode.getChildren("module"))
-						fModuleNodes.put(instanceNode.getString("class"), instanceNode);
+						fModuleNodes.put(instanceNode.getString("class"), ModuleDescriptor.fromMemento(instanceNode));
 
 					for (final IMemento instanceNode : extensionNode.getChildren("category"))
-						fCategoryNodes.add(instanceNode);
+						fCategoryNodes.add(CategoryDescriptor.fromMemento(instanceNode));
 				}
 			}
 		} catch (final Exception e) {
@@ -543,12 +1279,145 @@ public class ModuleDoclet implements Doclet {
 						return true;
 					}
 				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_FAIL_FAST.toString(),
+						optionLength(OPTION_FAIL_FAST.toString()) - 1, "Stop generation after the given amount of errors (see -failOnHTMLError, -failOnMissingDocs)", "<count>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fFailFast = Integer.parseInt(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_ARCHIVE.toString(),
+						optionLength(OPTION_ARCHIVE.toString()) - 1, "Write help content to a single archive (eg doc.zip) instead of the help folder", "<file>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fArchiveName = list.get(0);
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_REPORT.toString(),
+						optionLength(OPTION_REPORT.toString()) - 1, "Write a JSON performance report with timings per phase and module", "<file>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fReportFile = new File(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_REPORT_SLOWEST.toString(),
+						optionLength(OPTION_REPORT_SLOWEST.toString()) - 1, "Amount of slowest modules listed in the performance report", "<number>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fReportSlowest = Integer.parseInt(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_MEMORY_BUDGET.toString(),
+						optionLength(OPTION_MEMORY_BUDGET.toString()) - 1, "Streaming mode: generate modules in batches and keep heap usage below the given budget", "<MB>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fMemoryBudget = new MemoryBudget(Long.parseLong(list.get(0)) * 1024 * 1024);
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_BATCH_SIZE.toString(),
+						optionLength(OPTION_BATCH_SIZE.toString()) - 1, "Amount of modules generated per batch in streaming mode", "<number>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fBatchSize = Math.max(1, Integer.parseInt(list.get(0)));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_VERIFY_REPRODUCIBLE.toString(),
+						optionLength(OPTION_VERIFY_REPRODUCIBLE.toString()) - 1, "Generate twice and fail when the output differs", "<boolean>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fVerifyReproducible = Boolean.parseBoolean(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_MINIFY.toString(),
+						optionLength(OPTION_MINIFY.toString()) - 1, "Render help pages without insignificant whitespace and empty containers", "<boolean>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fMinify = Boolean.parseBoolean(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_HOVER_STORE.toString(),
+						optionLength(OPTION_HOVER_STORE.toString()) - 1, "Write method and constant blocks to " + HoverStore.FILE_NAME + " for help hovers", "<boolean>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fWriteHoverStore = Boolean.parseBoolean(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_WATCH.toString(),
+						optionLength(OPTION_WATCH.toString()) - 1, "Keep running and regenerate modules whenever their sources or plugin.xml change", "<boolean>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fWatch = Boolean.parseBoolean(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_CHECK_ONLY.toString(),
+						optionLength(OPTION_CHECK_ONLY.toString()) - 1, "Only validate documentation and print a JSON report, do not write any files", "<boolean>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fCheckOnly = Boolean.parseBoolean(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_GRAPH.toString(),
+						optionLength(OPTION_GRAPH.toString()) - 1, "Export the module dependency and link graph", "<file>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fGraphFile = new File(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_STALE_FILES.toString(),
+						optionLength(OPTION_STALE_FILES.toString()) - 1, "Handle pages and TOCs of removed or renamed modules left in the help folder", "<keep|report|delete>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						if (!Arrays.asList(STALE_FILES_KEEP, STALE_FILES_REPORT, STALE_FILES_DELETE).contains(list.get(0))) {
+							System.out.println("ERROR: invalid value for " + OPTION_STALE_FILES + ": " + list.get(0));
+							return false;
+						}
+
+						fStaleFiles = list.get(0);
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_METADATA_STAMP.toString(),
+						optionLength(OPTION_METADATA_STAMP.toString()) - 1, "Stamp file to skip plugin.xml, MANIFEST.MF and build.properties when they already comply", "<file>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fMetadataStampFile = new File(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_FRAGMENT_CACHE.toString(),
+						optionLength(OPTION_FRAGMENT_CACHE.toString()) - 1, "Folder to cache rendered method and constant blocks between runs", "<folder>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fFragmentCacheFolder = new File(list.get(0));
+						return true;
+					}
+				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_FRAGMENT_CACHE_SIZE.toString(),
+						optionLength(OPTION_FRAGMENT_CACHE_SIZE.toString()) - 1, "Maximum size of the fragment cache, least recently used entries get evicted", "<MB>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						fFragmentCacheSize = Long.parseLong(list.get(0)) * 1024 * 1024;
+						return true;
+					}
+				},
 				new org.eclipse.ease.helpgenerator.Option(OPTION_LINK.toString(),
 						optionLength(OPTION_LINK.toString()) - 1, "Official documentation link to be included in the generated files", "<string>") {
 					@Override
 					public boolean process(String s, List<String> list) {
 						try {
-							fLinkProvider.registerAddress(list.get(0), parsePackages(new URL(list.get(0) + "/package-list").openStream()));
+							registerPackageList(list.get(0), list.get(0) + "/package-list", new URL(list.get(0) + "/package-list").openStream());
 						} catch (final MalformedURLException e) {
 							System.out.println("Error: cannot parse external URL " + list.get(0));
 						} catch (final IOException e) {
@@ -558,6 +1427,18 @@ public class ModuleDoclet implements Doclet {
 						return true;
 					}
 				},
+				new org.eclipse.ease.helpgenerator.Option(OPTION_PACKAGE_INDEX.toString(),
+						optionLength(OPTION_PACKAGE_INDEX.toString()) - 1, "Binary package index of external documentation sites, created by PackageIndex", "<file>") {
+					@Override
+					public boolean process(String s, List<String> list) {
+						try {
+							fLinkProvider.registerIndex(PackageIndex.open(new File(list.get(0))));
+						} catch (final IOException e) {
+							System.out.println("Error: cannot read package index " + list.get(0) + ": " + e.getMessage());
+						}
+						return true;
+					}
+				},
 				new org.eclipse.ease.helpgenerator.Option(OPTION_LINK_OFFLINE.toString(),
 						optionLength(OPTION_LINK_OFFLINE.toString()) - 1, "Subpackages", "<string>") {
 					@Override
@@ -565,14 +1446,15 @@ public class ModuleDoclet implements Doclet {
 
 						try {
 							final URL url = new URL(list.get(1) + "/package-list");
-							fLinkProvider.registerAddress(list.get(0), parsePackages(url.openStream()));
+							registerPackageList(list.get(0), url.toString(), url.openStream());
 
 						} catch (final MalformedURLException e) {
 							// invalid URI
 
 							try {
 								// try to read from local file
-								fLinkProvider.registerAddress(list.get(0), parsePackages(new FileInputStream(list.get(1) + File.separator + "package-list")));
+								final String location = list.get(1) + File.separator + "package-list";
+								registerPackageList(list.get(0), location, new FileInputStream(location));
 							} catch (final FileNotFoundException e1) {
 								System.out.println("Error: cannot read from " + list.get(1));
 							}
@@ -592,6 +1474,7 @@ public class ModuleDoclet implements Doclet {
 
 	@Override
 	public boolean run(DocletEnvironment docletEnvironment) {
-		return process(docletEnvironment);
+		return process(docletEnvironment.getDocTrees(), docletEnvironment.getElementUtils(), docletEnvironment.getTypeUtils(),
+				docletEnvironment.getIncludedElements(), docletEnvironment.getJavaFileManager());
 	}
 }
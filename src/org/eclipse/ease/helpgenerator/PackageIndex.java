@@ -0,0 +1,445 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary index of the packages documented by external javadoc sites. Package names are stored sorted and prefix compressed, each entry refers to the site
+ * documenting it. Every {@link #RESTART_INTERVAL}th entry is stored uncompressed and referenced from a restart table, so lookups run a binary search over
+ * restart entries followed by a short linear scan. Queries work on UTF-8 bytes directly and never create strings for index entries.
+ * <p>
+ * Indexes are created once from package-list/element-list files using {@link #main(String[])} and memory mapped by {@link #open(File)}:
+ * </p>
+ *
+ * <pre>
+ * java -cp helpgenerator.jar org.eclipse.ease.helpgenerator.PackageIndex &lt;index file&gt; &lt;site URL&gt; &lt;package-list location&gt; [&lt;site URL&gt; &lt;package-list location&gt;]...
+ * </pre>
+ *
+ * <p>
+ * Layout (big endian): magic, version, site count, sites (length + UTF-8 bytes), entry count, restart count, restart offsets, entries. An entry consists of the
+ * amount of bytes shared with the previous name, the length of the remaining suffix, the suffix bytes and the site id.
+ * </p>
+ */
+public class PackageIndex {
+
+	/** Builds index data from package names. Duplicate packages are assigned to the first site registering them. */
+	public static class Builder {
+
+		private final List<String> fSites = new ArrayList<>();
+		private final List<Entry> fEntries = new ArrayList<>();
+
+		/**
+		 * Add a documentation site with its packages.
+		 *
+		 * @param site
+		 *            documentation base URL
+		 * @param packages
+		 *            packages documented by the site
+		 * @return <code>this</code>
+		 */
+		public Builder addSite(final String site, final Collection<String> packages) {
+			if (fSites.size() > MAX_SITES)
+				throw new IllegalArgumentException("Too many sites for a package index: " + site);
+
+			final int siteId = fSites.size();
+			fSites.add(site);
+
+			for (final String packageName : packages) {
+				if (!packageName.isEmpty()) {
+					final byte[] name = packageName.getBytes(StandardCharsets.UTF_8);
+					if (name.length > MAX_NAME_LENGTH)
+						throw new IllegalArgumentException("Package name too long for a package index: " + packageName);
+
+					fEntries.add(new Entry(name, siteId));
+				}
+			}
+
+			return this;
+		}
+
+		public boolean isEmpty() {
+			return fSites.isEmpty();
+		}
+
+		/**
+		 * Serialize the index.
+		 *
+		 * @return index data
+		 */
+		public byte[] toByteArray() {
+			// stable sort keeps registration order for duplicates
+			final List<Entry> entries = new ArrayList<>(fEntries);
+			Collections.sort(entries, (a, b) -> compare(a.fName, 0, a.fName.length, b.fName, b.fName.length));
+
+			final ByteArrayOutputStream data = new ByteArrayOutputStream();
+			final List<Integer> restarts = new ArrayList<>();
+			byte[] previous = null;
+			int count = 0;
+			for (final Entry entry : entries) {
+				if ((previous != null) && (compare(previous, 0, previous.length, entry.fName, entry.fName.length) == 0))
+					continue;
+
+				int shared = 0;
+				if ((count % RESTART_INTERVAL) == 0) {
+					restarts.add(data.size());
+				} else {
+					while ((shared < previous.length) && (shared < entry.fName.length) && (previous[shared] == entry.fName[shared]))
+						shared++;
+				}
+
+				data.write(shared);
+				data.write(entry.fName.length - shared);
+				data.write(entry.fName, shared, entry.fName.length - shared);
+				data.write(entry.fSite >> 8);
+				data.write(entry.fSite);
+
+				count++;
+				previous = entry.fName;
+			}
+
+			try {
+				final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+				final DataOutputStream output = new DataOutputStream(buffer);
+				output.writeInt(MAGIC);
+				output.writeInt(FORMAT_VERSION);
+				output.writeInt(fSites.size());
+				for (final String site : fSites) {
+					final byte[] bytes = site.getBytes(StandardCharsets.UTF_8);
+					output.writeInt(bytes.length);
+					output.write(bytes);
+				}
+
+				output.writeInt(count);
+				output.writeInt(restarts.size());
+				for (final int restart : restarts)
+					output.writeInt(restart);
+
+				data.writeTo(output);
+				output.flush();
+
+				return buffer.toByteArray();
+
+			} catch (final IOException e) {
+				// cannot happen on a memory stream
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * Serialize the index to a file. The file is replaced atomically, so readers never see a partially written index.
+		 *
+		 * @param file
+		 *            index file
+		 * @throws IOException
+		 *             when the file cannot be written
+		 */
+		public void write(final File file) throws IOException {
+			final File folder = file.getAbsoluteFile().getParentFile();
+			if (folder != null)
+				folder.mkdirs();
+
+			final File temporary = new File(file.getPath() + ".tmp");
+			Files.write(temporary.toPath(), toByteArray());
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	private static final class Entry {
+		private final byte[] fName;
+		private final int fSite;
+
+		private Entry(final byte[] name, final int site) {
+			fName = name;
+			fSite = site;
+		}
+	}
+
+	/** File magic, "EPIX". */
+	private static final int MAGIC = 0x45504958;
+
+	private static final int FORMAT_VERSION = 1;
+
+	/** Amount of entries between two uncompressed entries. */
+	private static final int RESTART_INTERVAL = 16;
+
+	private static final int MAX_NAME_LENGTH = 0xFF;
+
+	private static final int MAX_SITES = 0xFFFF;
+
+	/**
+	 * Memory map an index file.
+	 *
+	 * @param file
+	 *            index created by {@link Builder#write(File)}
+	 * @return package index
+	 * @throws IOException
+	 *             when the file cannot be read or is not a package index
+	 */
+	public static PackageIndex open(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new PackageIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.getPath());
+		}
+	}
+
+	/**
+	 * Read package names from a package-list or element-list file. Module entries of element-lists are skipped.
+	 *
+	 * @param inputStream
+	 *            list content, gets closed
+	 * @return package names
+	 * @throws IOException
+	 *             when the list cannot be read
+	 */
+	public static Collection<String> readPackageList(final InputStream inputStream) throws IOException {
+		final Collection<String> packages = new ArrayList<>();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+			String line = reader.readLine();
+			while (line != null) {
+				line = line.trim();
+				if ((!line.isEmpty()) && (!line.startsWith("module:")))
+					packages.add(line);
+
+				line = reader.readLine();
+			}
+		}
+
+		return packages;
+	}
+
+	/**
+	 * Convert package-list/element-list files to a binary package index.
+	 *
+	 * @param args
+	 *            index file followed by pairs of site URL and list location (file or URL)
+	 * @throws IOException
+	 *             when a list cannot be read or the index cannot be written
+	 */
+	public static void main(final String[] args) throws IOException {
+		if ((args.length < 3) || ((args.length % 2) == 0)) {
+			System.out.println("usage: PackageIndex <index file> <site URL> <package-list location> [<site URL> <package-list location>]...");
+			return;
+		}
+
+		final Builder builder = new Builder();
+		for (int index = 1; index < args.length; index += 2)
+			builder.addSite(args[index], readPackageList(openLocation(args[index + 1])));
+
+		final File file = new File(args[0]);
+		builder.write(file);
+
+		final PackageIndex packageIndex = open(file);
+		System.out.println("Wrote " + packageIndex.getEntryCount() + " packages of " + packageIndex.getSiteCount() + " site(s) to " + file + " ("
+				+ file.length() + " bytes)");
+	}
+
+	private static InputStream openLocation(final String location) throws IOException {
+		try {
+			return new URL(location).openStream();
+		} catch (final MalformedURLException e) {
+			return new FileInputStream(location);
+		}
+	}
+
+	/**
+	 * Compare a byte range with a key using unsigned byte order.
+	 */
+	private static int compare(final byte[] data, final int offset, final int length, final byte[] key, final int keyLength) {
+		final int common = Math.min(length, keyLength);
+		for (int index = 0; index < common; index++) {
+			final int difference = (data[offset + index] & 0xFF) - (key[index] & 0xFF);
+			if (difference != 0)
+				return difference;
+		}
+
+		return length - keyLength;
+	}
+
+	private final ByteBuffer fBuffer;
+	private final String fLocation;
+	private final String[] fSites;
+	private final int fEntryCount;
+	private final int fRestartCount;
+	private final int fRestartTable;
+	private final int fData;
+
+	/** Scratch buffer to reconstruct prefix compressed names. */
+	private final byte[] fName = new byte[MAX_NAME_LENGTH];
+
+	/** Hash of the index content, <code>null</code> when not calculated yet. */
+	private String fFingerprint = null;
+
+	/**
+	 * Create an index on top of serialized index data.
+	 *
+	 * @param buffer
+	 *            data created by {@link Builder#toByteArray()}
+	 * @param location
+	 *            index location, used for error messages
+	 * @throws IOException
+	 *             when the data is not a package index
+	 */
+	public PackageIndex(final ByteBuffer buffer, final String location) throws IOException {
+		fBuffer = buffer;
+		fLocation = location;
+
+		try {
+			if ((fBuffer.getInt(0) != MAGIC) || (fBuffer.getInt(4) != FORMAT_VERSION))
+				throw new IOException("Not a package index: " + location);
+
+			int position = 8;
+			fSites = new String[fBuffer.getInt(position)];
+			position += 4;
+			for (int index = 0; index < fSites.length; index++) {
+				final byte[] site = new byte[fBuffer.getInt(position)];
+				position += 4;
+				read(position, site, 0, site.length);
+				position += site.length;
+				fSites[index] = new String(site, StandardCharsets.UTF_8);
+			}
+
+			fEntryCount = fBuffer.getInt(position);
+			fRestartCount = fBuffer.getInt(position + 4);
+			fRestartTable = position + 8;
+			fData = fRestartTable + (fRestartCount * 4);
+
+		} catch (final IndexOutOfBoundsException e) {
+			throw new IOException("Truncated package index: " + location, e);
+		}
+	}
+
+	public int getEntryCount() {
+		return fEntryCount;
+	}
+
+	public int getSiteCount() {
+		return fSites.length;
+	}
+
+	/**
+	 * @param siteId
+	 *            id returned by {@link #findSite(byte[], int)}
+	 * @return documentation base URL
+	 */
+	public String getSite(final int siteId) {
+		return fSites[siteId];
+	}
+
+	/**
+	 * Find the site documenting a package.
+	 *
+	 * @param key
+	 *            UTF-8 encoded package name
+	 * @param length
+	 *            amount of bytes of <i>key</i> to use
+	 * @return site id or -1 when the package is not indexed
+	 */
+	public int findSite(final byte[] key, final int length) {
+		if ((fRestartCount == 0) || (length > MAX_NAME_LENGTH))
+			return -1;
+
+		// binary search for the last restart entry <= key
+		int low = 0;
+		int high = fRestartCount - 1;
+		while (low < high) {
+			final int middle = (low + high + 1) >>> 1;
+			final int offset = fData + fBuffer.getInt(fRestartTable + (middle * 4));
+			if (compareEntry(offset, key, length) <= 0)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+
+		// linear scan within the block, reconstructing compressed names
+		int offset = fData + fBuffer.getInt(fRestartTable + (low * 4));
+		final int end = (low + 1 < fRestartCount) ? fData + fBuffer.getInt(fRestartTable + ((low + 1) * 4)) : fBuffer.limit();
+		while (offset < end) {
+			final int shared = fBuffer.get(offset) & 0xFF;
+			final int suffix = fBuffer.get(offset + 1) & 0xFF;
+			read(offset + 2, fName, shared, suffix);
+
+			final int comparison = compare(fName, 0, shared + suffix, key, length);
+			if (comparison == 0)
+				return fBuffer.getShort(offset + 2 + suffix) & 0xFFFF;
+
+			if (comparison > 0)
+				return -1;
+
+			offset += 4 + suffix;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Absolute bulk read, independent of the buffer position.
+	 */
+	private void read(final int offset, final byte[] target, final int targetOffset, final int length) {
+		for (int index = 0; index < length; index++)
+			target[targetOffset + index] = fBuffer.get(offset + index);
+	}
+
+	/**
+	 * Compare an uncompressed entry with a key.
+	 */
+	private int compareEntry(final int offset, final byte[] key, final int length) {
+		final int suffix = fBuffer.get(offset + 1) & 0xFF;
+		final int common = Math.min(suffix, length);
+		for (int index = 0; index < common; index++) {
+			final int difference = (fBuffer.get(offset + 2 + index) & 0xFF) - (key[index] & 0xFF);
+			if (difference != 0)
+				return difference;
+		}
+
+		return suffix - length;
+	}
+
+	/**
+	 * Get a fingerprint of the index content.
+	 *
+	 * @return hash of the index data
+	 */
+	public String getFingerprint() {
+		if (fFingerprint == null) {
+			final MessageDigest digest = Hashes.createDigest();
+			digest.update(fBuffer.duplicate().clear());
+			fFingerprint = Hashes.toHex(digest.digest());
+		}
+
+		return fFingerprint;
+	}
+
+	@Override
+	public String toString() {
+		return fLocation + " (" + fEntryCount + " packages, " + fSites.length + " sites)";
+	}
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+/**
+ * Static fragments of module help pages, encoded to UTF-8 once. {@link HTMLWriter} combines them with dynamic content in a {@link Utf8Buffer}.
+ * <p>
+ * Two sets of fragments exist: {@link #DEFAULT} with indentation and line delimiters, and {@link #MINIFIED} where whitespace between tags is removed. Both are
+ * built from the same templates when the class is loaded, so rendering a minified page does not need any post processing.
+ * </p>
+ */
+final class PageTemplates {
+
+	/** Indented fragments. */
+	static final PageTemplates DEFAULT = new PageTemplates(false);
+
+	/** Fragments without insignificant whitespace. */
+	static final PageTemplates MINIFIED = new PageTemplates(true);
+
+	final boolean fMinified;
+
+	// module page
+	final byte[] PAGE_START;
+	final byte[] MODULE_START;
+	final byte[] MODULE_TITLE_END;
+	final byte[] MODULE_HEADER_START;
+	final byte[] MODULE_HEADER_END;
+	final byte[] MODULE_DESCRIPTION_START;
+	final byte[] PARAGRAPH_END;
+	final byte[] MODULE_END;
+	final byte[] PAGE_END;
+	final byte[] LINE_DELIMITER;
+
+	// constants table
+	final byte[] CONSTANTS_START;
+	final byte[] ROW_START;
+	final byte[] ROW_END;
+	final byte[] TABLE_END;
+	final byte[] CONSTANT_ANCHOR_START;
+	final byte[] CONSTANT_DESCRIPTION_START;
+	final byte[] CELL_END;
+	final byte[] CONSTANT_HOVER_START;
+	final byte[] CONSTANT_HOVER_END;
+
+	// method overview table
+	final byte[] OVERVIEW_START;
+	final byte[] OVERVIEW_LINK_START;
+	final byte[] OVERVIEW_DEPRECATED_LINK_START;
+	final byte[] OVERVIEW_LINK_END;
+	final byte[] OVERVIEW_DESCRIPTION_START;
+	final byte[] OVERVIEW_DEPRECATED_DESCRIPTION_START;
+
+	// method details
+	final byte[] METHODS_START;
+	final byte[] METHOD_START;
+	final byte[] METHOD_DEPRECATED;
+	final byte[] METHOD_DATA_START;
+	final byte[] TAG_END;
+	final byte[] METHOD_HEADER_START;
+	final byte[] METHOD_DEPRECATED_HEADER_START;
+	final byte[] ANCHOR_START;
+	final byte[] ATTRIBUTE_END;
+	final byte[] METHOD_HEADER_END;
+	final byte[] METHOD_DESCRIPTION_START;
+	final byte[] METHOD_END;
+
+	private PageTemplates(final boolean minified) {
+		fMinified = minified;
+
+		// module page
+		PAGE_START = encode(minified, "<html>\n" //
+				+ "<head>\n" //
+				+ "	<meta http-equiv=\"Content-Type\" content=\"text/html; charset=utf-8\"/>\n" //
+				+ "	<link rel=\"stylesheet\" type=\"text/css\" href=\"../../org.eclipse.ease.help/help/css/modules_reference.css\" />\n" //
+				+ "</head>\n" //
+				+ "<body>\n");
+
+		MODULE_START = encode(minified, "	<div class=\"module\" title=\"");
+		MODULE_TITLE_END = encode(minified, " Module\">\n");
+		MODULE_HEADER_START = encode(minified, "		<h1>");
+		MODULE_HEADER_END = encode(minified, " Module</h1>\n");
+		MODULE_DESCRIPTION_START = encode(minified, "		<p class=\"description\">");
+		PARAGRAPH_END = encode(minified, "</p>\n");
+		MODULE_END = encode(minified, "	</div>\n");
+
+		PAGE_END = encode(minified, "</body>\n" //
+				+ "</html>\n");
+
+		LINE_DELIMITER = encode(minified, "\n");
+
+		// constants table
+		CONSTANTS_START = encode(minified, "\n" //
+				+ "	<h2>Constants</h2>\n" //
+				+ "	<table class=\"constants\">\n" //
+				+ "		<tr>\n" //
+				+ "			<th>Constant</th>\n" //
+				+ "			<th>Description</th>\n" //
+				+ "		</tr>\n");
+
+		ROW_START = encode(minified, "		<tr>\n");
+		ROW_END = encode(minified, "		</tr>\n");
+		TABLE_END = encode(minified, "	</table>\n" //
+				+ "\n");
+
+		CONSTANT_ANCHOR_START = encode(minified, "			<td><a id=\"");
+		CONSTANT_DESCRIPTION_START = encode(minified, "			<td class=\"description\" data-field=\"");
+		CELL_END = encode(minified, "</td>\n");
+		CONSTANT_HOVER_START = encode(minified, "<table class=\"constants\">\n");
+		CONSTANT_HOVER_END = encode(minified, "</table>\n");
+
+		// method overview table
+		OVERVIEW_START = encode(minified, "	<h2>Method Overview</h2>\n" //
+				+ "	<table class=\"functions\">\n" //
+				+ "		<tr>\n" //
+				+ "			<th>Method</th>\n" //
+				+ "			<th>Description</th>\n" //
+				+ "		</tr>\n");
+
+		OVERVIEW_LINK_START = encode(minified, "			<td><a href=\"#");
+		OVERVIEW_DEPRECATED_LINK_START = encode(minified, "			<td class=\"deprecatedText\"><a href=\"#");
+		OVERVIEW_LINK_END = encode(minified, "</a>()</td>\n");
+		OVERVIEW_DESCRIPTION_START = encode(minified, "			<td>");
+		OVERVIEW_DEPRECATED_DESCRIPTION_START = encode(minified, "			<td class=\"deprecatedDescription\"><b>Deprecated:</b> ");
+
+		// method details
+		METHODS_START = encode(minified, "\t<h2>Methods</h2>\n");
+		METHOD_START = encode(minified, "\t<div class=\"command");
+		METHOD_DEPRECATED = encode(minified, " deprecated");
+		METHOD_DATA_START = encode(minified, "\" data-method=\"");
+		TAG_END = encode(minified, "\">\n");
+		METHOD_HEADER_START = encode(minified, "\t\t<h3>");
+		METHOD_DEPRECATED_HEADER_START = encode(minified, "\t\t<h3 class=\"deprecatedText\">");
+		ANCHOR_START = encode(minified, "<a id=\"");
+		ATTRIBUTE_END = encode(minified, "\">");
+		METHOD_HEADER_END = encode(minified, "</a></h3>\n");
+		METHOD_DESCRIPTION_START = encode(minified, "\t\t<p class=\"description\">");
+		METHOD_END = encode(minified, "\t</div>\n");
+	}
+
+	/**
+	 * Encode a template. Minified templates drop line delimiters together with the indentation of the following line.
+	 */
+	private static byte[] encode(final boolean minified, final String template) {
+		return Utf8Buffer.encode(minified ? removeIndentation(template).replaceAll("\n\t*", "") : template);
+	}
+
+	/**
+	 * Remove tabs at the start of markup.
+	 *
+	 * @param markup
+	 *            markup starting a line
+	 * @return markup without leading tabs
+	 */
+	static String removeIndentation(final String markup) {
+		int start = 0;
+		while ((start < markup.length()) && (markup.charAt(start) == '\t'))
+			start++;
+
+		return (start == 0) ? markup : markup.substring(start);
+	}
+}
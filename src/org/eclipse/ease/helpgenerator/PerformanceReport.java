@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Records wall time, CPU time and allocated bytes of generation phases and of individual modules. Figures are taken from the per-thread counters of the
+ * {@link com.sun.management.ThreadMXBean}. The report can be stored as JSON for CI tooling.
+ */
+public class PerformanceReport {
+
+	/** Running measurement. Ending it stores the figures in the report. */
+	public class Measurement {
+		private final String fName;
+		private final Collection<Measurement> fTarget;
+		private final long fWallStart;
+		private final long fCpuStart;
+		private final long fAllocatedStart;
+
+		private long fWallTime;
+		private long fCpuTime;
+		private long fAllocated;
+
+		private Measurement(final String name, final Collection<Measurement> target) {
+			fName = name;
+			fTarget = target;
+			fAllocatedStart = readAllocatedBytes();
+			fCpuStart = readCpuTime();
+			fWallStart = System.nanoTime();
+		}
+
+		/**
+		 * Stop measuring and add the figures to the report.
+		 */
+		public void end() {
+			fWallTime = System.nanoTime() - fWallStart;
+			fCpuTime = readCpuTime() - fCpuStart;
+			fAllocated = readAllocatedBytes() - fAllocatedStart;
+
+			fTarget.add(this);
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		public long getWallTime() {
+			return fWallTime;
+		}
+
+		public long getCpuTime() {
+			return fCpuTime;
+		}
+
+		public long getAllocatedBytes() {
+			return fAllocated;
+		}
+	}
+
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN = initThreadBean();
+
+	private final List<Measurement> fPhases = new ArrayList<>();
+	private final List<Measurement> fModules = new ArrayList<>();
+	private final int fSlowestModules;
+	private final Map<String, Long> fCounters = new TreeMap<>();
+	private final long fStart = System.currentTimeMillis();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param slowestModules
+	 *            amount of modules to list in the <i>slowestModules</i> section of the report
+	 */
+	public PerformanceReport(final int slowestModules) {
+		fSlowestModules = slowestModules;
+	}
+
+	private static com.sun.management.ThreadMXBean initThreadBean() {
+		final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		if (bean.isThreadCpuTimeSupported() && !bean.isThreadCpuTimeEnabled())
+			bean.setThreadCpuTimeEnabled(true);
+
+		if (bean.isThreadAllocatedMemorySupported() && !bean.isThreadAllocatedMemoryEnabled())
+			bean.setThreadAllocatedMemoryEnabled(true);
+
+		return bean;
+	}
+
+	private static long readCpuTime() {
+		return THREAD_BEAN.isThreadCpuTimeEnabled() ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+	}
+
+	private static long readAllocatedBytes() {
+		return THREAD_BEAN.isThreadAllocatedMemoryEnabled() ? THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	/**
+	 * Start measuring a generation phase.
+	 *
+	 * @param name
+	 *            phase name
+	 * @return measurement to be ended when the phase is done
+	 */
+	public Measurement startPhase(final String name) {
+		return new Measurement(name, fPhases);
+	}
+
+	/**
+	 * Start measuring the generation of a single module.
+	 *
+	 * @param moduleId
+	 *            module id
+	 * @return measurement to be ended when the module is done
+	 */
+	public Measurement startModule(final String moduleId) {
+		return new Measurement(moduleId, fModules);
+	}
+
+	/**
+	 * Set a named counter, eg cache statistics.
+	 *
+	 * @param name
+	 *            counter name
+	 * @param value
+	 *            counter value
+	 */
+	public void setCounter(final String name, final long value) {
+		fCounters.put(name, value);
+	}
+
+	public Map<String, Long> getCounters() {
+		return fCounters;
+	}
+
+	public List<Measurement> getPhases() {
+		return fPhases;
+	}
+
+	public List<Measurement> getModules() {
+		return fModules;
+	}
+
+	/**
+	 * Get the modules that took most wall time.
+	 *
+	 * @return up to <i>slowestModules</i> measurements, slowest first
+	 */
+	public List<Measurement> getSlowestModules() {
+		final List<Measurement> modules = new ArrayList<>(fModules);
+		modules.sort(Comparator.comparingLong(Measurement::getWallTime).reversed());
+		return modules.subList(0, Math.min(fSlowestModules, modules.size()));
+	}
+
+	/**
+	 * Store the report as JSON.
+	 *
+	 * @param file
+	 *            target file
+	 * @throws IOException
+	 *             when the file cannot be written
+	 */
+	public void write(final File file) throws IOException {
+		if ((file.getParentFile() != null) && (!file.getParentFile().exists()))
+			file.getParentFile().mkdirs();
+
+		Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+	}
+
+	public String toJson() {
+		long wallTime = 0;
+		long cpuTime = 0;
+		long allocated = 0;
+		for (final Measurement phase : fPhases) {
+			wallTime += phase.getWallTime();
+			cpuTime += phase.getCpuTime();
+			allocated += phase.getAllocatedBytes();
+		}
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append("{\n");
+		builder.append("\t\"timestamp\": \"").append(Instant.ofEpochMilli(fStart)).append("\",\n");
+		builder.append("\t\"total\": {\"wallNanos\": ").append(wallTime).append(", \"cpuNanos\": ").append(cpuTime).append(", \"allocatedBytes\": ")
+				.append(allocated).append("},\n");
+		appendMeasurements(builder, "phases", fPhases);
+		builder.append(",\n");
+		appendMeasurements(builder, "modules", fModules);
+		builder.append(",\n");
+		appendMeasurements(builder, "slowestModules", getSlowestModules());
+		builder.append(",\n");
+
+		builder.append("\t\"counters\": {");
+		int index = 0;
+		for (final Entry<String, Long> counter : fCounters.entrySet())
+			builder.append((index++ == 0) ? "" : ", ").append('"').append(escapeJson(counter.getKey())).append("\": ").append(counter.getValue());
+		builder.append("}");
+
+		builder.append("\n}\n");
+
+		return builder.toString();
+	}
+
+	private static void appendMeasurements(final StringBuilder builder, final String key, final List<Measurement> measurements) {
+		builder.append("\t\"").append(key).append("\": [");
+		for (int index = 0; index < measurements.size(); index++) {
+			final Measurement measurement = measurements.get(index);
+			builder.append((index == 0) ? "\n" : ",\n");
+			builder.append("\t\t{\"name\": \"").append(escapeJson(measurement.getName())).append("\", \"wallNanos\": ").append(measurement.getWallTime())
+					.append(", \"cpuNanos\": ").append(measurement.getCpuTime()).append(", \"allocatedBytes\": ").append(measurement.getAllocatedBytes())
+					.append("}");
+		}
+
+		if (!measurements.isEmpty())
+			builder.append("\n\t");
+
+		builder.append("]");
+	}
+
+	static String escapeJson(final String text) {
+		if (text == null)
+			return "";
+
+		final StringBuilder builder = new StringBuilder(text.length());
+		for (int index = 0; index < text.length(); index++) {
+			final char c = text.charAt(index);
+			switch (c) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			case '\r':
+				builder.append("\\r");
+				break;
+			case '\t':
+				builder.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					builder.append(String.format("\\u%04x", (int) c));
+				else
+					builder.append(c);
+			}
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Run-wide index of script function names. Maps every exported method name and alias to the module method providing it. Conflicting registrations are
+ * collected while modules are generated, so name clashes between modules are detected in a single pass instead of at script runtime.
+ */
+public class ScriptNameIndex {
+
+	/** Owner ("moduleId.method()") by script name. */
+	private final Map<String, String> fOwners = new HashMap<>();
+
+	/** Conflicting owners by script name, sorted for reproducible reports. */
+	private final Map<String, Set<String>> fConflicts = new TreeMap<>();
+
+	/**
+	 * Register a method exported by a module together with its aliases.
+	 *
+	 * @param moduleId
+	 *            id of the owning module
+	 * @param methodName
+	 *            exported method name
+	 * @param aliases
+	 *            aliases of the method
+	 */
+	public void register(final String moduleId, final String methodName, final Collection<String> aliases) {
+		final String owner = moduleId + "." + methodName + "()";
+
+		register(methodName, owner);
+		for (final String alias : aliases)
+			register(alias, owner);
+	}
+
+	private void register(final String name, final String owner) {
+		final String previousOwner = fOwners.putIfAbsent(name, owner);
+		if ((previousOwner != null) && (!previousOwner.equals(owner))) {
+			fConflicts.computeIfAbsent(name, k -> {
+				final Set<String> owners = new TreeSet<>();
+				owners.add(previousOwner);
+				return owners;
+			}).add(owner);
+		}
+	}
+
+	/**
+	 * Get the module method registered for a script name.
+	 *
+	 * @return owner in the form <i>moduleId.method()</i> or <code>null</code>
+	 */
+	public String getOwner(final String name) {
+		return fOwners.get(name);
+	}
+
+	/**
+	 * Get script names provided by more than one module method.
+	 *
+	 * @return sorted map of conflicting names to their owners
+	 */
+	public Map<String, Set<String>> getConflicts() {
+		return fConflicts;
+	}
+}
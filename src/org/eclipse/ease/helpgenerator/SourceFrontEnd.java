@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.DocTreePath;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePath;
+
+import jdk.javadoc.doclet.Doclet;
+import jdk.javadoc.doclet.Reporter;
+
+/**
+ * Fast alternative to running {@link ModuleDoclet} through javadoc. Only the sources of module classes registered in plugin.xml are handed to the compiler,
+ * which parses and enters them without attributing any method bodies. Supertypes and signatures are completed lazily from the source and class paths when
+ * the generator asks for them. Unresolvable types are reported as warnings instead of failing the build, so help generation does not need the whole
+ * classpath to be compilable.
+ * <p>
+ * Accepts all doclet options plus the compiler path options. Javadoc options selecting sources (<i>-subpackages</i>, package names) are not needed:
+ * </p>
+ *
+ * <pre>
+ * java -cp helpgenerator.jar org.eclipse.ease.helpgenerator.SourceFrontEnd -sourcepath src:../other/src -root . -linkoffline ...
+ * </pre>
+ */
+public class SourceFrontEnd {
+
+	/** Compiler options taking a single argument, passed on to the compilation task. */
+	private static final Set<String> COMPILER_OPTIONS = Set.of("-sourcepath", "--source-path", "-classpath", "-cp", "--class-path", "-encoding", "--release",
+			"-source");
+
+	public static void main(final String[] args) {
+		System.exit(run(Arrays.asList(args)) ? 0 : 1);
+	}
+
+	/**
+	 * Generate help for the modules registered in plugin.xml.
+	 *
+	 * @param args
+	 *            doclet and compiler options
+	 * @return <code>true</code> on success
+	 */
+	public static boolean run(final List<String> args) {
+		final ModuleDoclet doclet = new ModuleDoclet();
+
+		final Map<String, Doclet.Option> docletOptions = new HashMap<>();
+		for (final Doclet.Option option : doclet.getSupportedOptions()) {
+			for (final String name : option.getNames())
+				docletOptions.put(name, option);
+		}
+
+		final List<String> compilerOptions = new ArrayList<>();
+		for (int index = 0; index < args.size(); index++) {
+			final String name = args.get(index);
+			final int argumentCount = COMPILER_OPTIONS.contains(name) ? 1 : docletOptions.containsKey(name) ? docletOptions.get(name).getArgumentCount() : -1;
+
+			if (argumentCount < 0) {
+				System.out.println("ERROR: unknown option " + name);
+				return false;
+			}
+
+			if (index + argumentCount >= args.size()) {
+				System.out.println("ERROR: missing argument for option " + name);
+				return false;
+			}
+
+			final List<String> arguments = args.subList(index + 1, index + 1 + argumentCount);
+			if (COMPILER_OPTIONS.contains(name)) {
+				compilerOptions.add(name);
+				compilerOptions.addAll(arguments);
+
+			} else if (!docletOptions.get(name).process(name, arguments))
+				return false;
+
+			index += argumentCount;
+		}
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, Locale.getDefault(), StandardCharsets.UTF_8)) {
+			final Set<String> classNames = doclet.getModuleClassNames();
+			final JavacTask task = parse(fileManager, compilerOptions, getSources(fileManager, compilerOptions, classNames));
+			final DocTrees docTrees = DocTrees.instance(task);
+
+			// looking up elements enters the parsed compilation units
+			final Set<Element> elements = new LinkedHashSet<>();
+			for (final String className : classNames) {
+				final Element element = task.getElements().getTypeElement(className);
+				if (element != null)
+					elements.add(element);
+			}
+
+			final TreeReporter reporter = new TreeReporter(docTrees);
+			doclet.init(Locale.getDefault(), reporter);
+			final boolean success = doclet.process(docTrees, task.getElements(), task.getTypes(), elements, fileManager);
+
+			return success && (reporter.getErrorCount() == 0);
+
+		} catch (final IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Locate the sources of module classes on the source path.
+	 */
+	private static List<JavaFileObject> getSources(final StandardJavaFileManager fileManager, final List<String> compilerOptions,
+			final Collection<String> classNames) throws IOException {
+		// path options need to be known before sources can be located
+		for (int index = 0; index < compilerOptions.size(); index += 2) {
+			final String name = compilerOptions.get(index);
+			if (fileManager.isSupportedOption(name) >= 0)
+				fileManager.handleOption(name, compilerOptions.subList(index + 1, index + 2).iterator());
+		}
+
+		final List<JavaFileObject> compilationUnits = new ArrayList<>();
+		for (final String className : classNames) {
+			final JavaFileObject source = fileManager.getJavaFileForInput(StandardLocation.SOURCE_PATH, className, JavaFileObject.Kind.SOURCE);
+			if (source != null)
+				compilationUnits.add(source);
+			else
+				System.out.println("WARNING: cannot locate source of " + className);
+		}
+
+		return compilationUnits;
+	}
+
+	/**
+	 * Parse compilation units. Elements get entered when they are looked up, eg by {@link javax.lang.model.util.Elements#getTypeElement(CharSequence)};
+	 * method bodies are never attributed. Compilation errors are printed as warnings, as help can still be generated from declarations and doc comments.
+	 * Messages of the doclet do not pass this listener, see {@link TreeReporter}.
+	 *
+	 * @param fileManager
+	 *            file manager resolving sources and classes
+	 * @param compilerOptions
+	 *            additional compiler options
+	 * @param compilationUnits
+	 *            sources to parse
+	 * @return compilation task, already parsed
+	 */
+	static JavacTask parse(final JavaFileManager fileManager, final List<String> compilerOptions, final List<JavaFileObject> compilationUnits)
+			throws IOException {
+		final List<String> options = new ArrayList<>(compilerOptions);
+		options.add("-proc:none");
+
+		final DiagnosticListener<JavaFileObject> diagnostics = diagnostic -> {
+			if ((diagnostic.getKind() == Diagnostic.Kind.ERROR) && (diagnostic.getSource() != null))
+				System.out.println("WARNING: " + diagnostic.getSource().getName() + ":" + diagnostic.getLineNumber() + ": " + diagnostic.getMessage(null));
+		};
+
+		final JavacTask task = (JavacTask) ToolProvider.getSystemJavaCompiler().getTask(null, fileManager, diagnostics, options, null, compilationUnits);
+		task.parse();
+		return task;
+	}
+
+	/**
+	 * Reporter printing messages at source positions, replacing the javadoc reporter. Messages are printed directly instead of through the compiler
+	 * diagnostics, which downgrade parse errors to warnings. Errors are counted to set the exit code.
+	 */
+	private static class TreeReporter implements Reporter {
+
+		private final DocTrees fDocTrees;
+		private int fErrors = 0;
+
+		private TreeReporter(final DocTrees docTrees) {
+			fDocTrees = docTrees;
+		}
+
+		public int getErrorCount() {
+			return fErrors;
+		}
+
+		@Override
+		public void print(final Diagnostic.Kind kind, final String message) {
+			if (kind == Diagnostic.Kind.ERROR)
+				fErrors++;
+
+			switch (kind) {
+			case ERROR:
+				System.out.println("ERROR: " + message);
+				break;
+			case WARNING:
+			case MANDATORY_WARNING:
+				System.out.println("WARNING: " + message);
+				break;
+			default:
+				System.out.println(message);
+				break;
+			}
+		}
+
+		@Override
+		public void print(final Diagnostic.Kind kind, final DocTreePath path, final String message) {
+			final CompilationUnitTree unit = path.getTreePath().getCompilationUnit();
+			final long position = fDocTrees.getSourcePositions().getStartPosition(unit, path.getDocComment(), path.getLeaf());
+			print(kind, getLocation(unit, position) + message);
+		}
+
+		@Override
+		public void print(final Diagnostic.Kind kind, final Element element, final String message) {
+			final TreePath path = fDocTrees.getPath(element);
+			if (path != null) {
+				final CompilationUnitTree unit = path.getCompilationUnit();
+				final long position = fDocTrees.getSourcePositions().getStartPosition(unit, path.getLeaf());
+				print(kind, getLocation(unit, position) + message);
+
+			} else
+				print(kind, message);
+		}
+
+		private static String getLocation(final CompilationUnitTree unit, final long position) {
+			if (position == Diagnostic.NOPOS)
+				return unit.getSourceFile().getName() + ": ";
+
+			return unit.getSourceFile().getName() + ":" + unit.getLineMap().getLineNumber(position) + ": ";
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches source files of module classes and reports which modules are affected by a change. Every module class is tracked with the compilation units it
+ * depends on (its own source and the sources of its supertypes). Only folders containing tracked files are registered with the {@link WatchService}.
+ */
+class SourceWatcher implements Closeable {
+
+	/** Delay to collect further events after the first change, editors typically write several files in a row. */
+	private static final long SETTLE_TIME = 50;
+
+	private final WatchService fWatchService;
+	private final Map<WatchKey, Path> fFolders = new HashMap<>();
+	private final Set<Path> fRegisteredFolders = new HashSet<>();
+
+	/** Module classes by source file. */
+	private final Map<Path, Set<String>> fDependents = new HashMap<>();
+
+	/** Source files by module class. */
+	private final Map<String, Collection<Path>> fSources = new HashMap<>();
+
+	SourceWatcher() throws IOException {
+		fWatchService = FileSystems.getDefault().newWatchService();
+	}
+
+	/**
+	 * Watch a single file that is not a module source, eg plugin.xml.
+	 */
+	void watch(final Path file) throws IOException {
+		register(file.toAbsolutePath().normalize().getParent());
+	}
+
+	/**
+	 * Track the source files a module class depends on. Replaces any previously tracked files of that class.
+	 *
+	 * @param className
+	 *            qualified module class name
+	 * @param sourceFiles
+	 *            compilation units the module depends on, its own source first
+	 */
+	void track(final String className, final Collection<Path> sourceFiles) throws IOException {
+		final Collection<Path> previous = fSources.remove(className);
+		if (previous != null) {
+			for (final Path file : previous)
+				fDependents.getOrDefault(file, Collections.emptySet()).remove(className);
+		}
+
+		final Collection<Path> files = new LinkedHashSet<>();
+		for (final Path file : sourceFiles) {
+			final Path normalized = file.toAbsolutePath().normalize();
+			files.add(normalized);
+			fDependents.computeIfAbsent(normalized, k -> new HashSet<>()).add(className);
+			register(normalized.getParent());
+		}
+
+		fSources.put(className, files);
+	}
+
+	/**
+	 * Get the tracked source files of a module class.
+	 *
+	 * @return source files, own source first, empty when the class is not tracked
+	 */
+	Collection<Path> getSources(final String className) {
+		return fSources.getOrDefault(className, Collections.emptySet());
+	}
+
+	/**
+	 * Get module classes depending on a source file.
+	 *
+	 * @return module class names, empty when the file is not tracked
+	 */
+	Set<String> getDependents(final Path file) {
+		return fDependents.getOrDefault(file.toAbsolutePath().normalize(), Collections.emptySet());
+	}
+
+	/**
+	 * Block until files in watched folders change.
+	 *
+	 * @return changed files, sorted
+	 * @throws InterruptedException
+	 *             when waiting was interrupted
+	 */
+	Set<Path> awaitChanges() throws InterruptedException {
+		final Set<Path> changes = new TreeSet<>();
+
+		WatchKey key = fWatchService.take();
+		while (key != null) {
+			final Path folder = fFolders.get(key);
+			for (final WatchEvent<?> event : key.pollEvents()) {
+				if ((folder != null) && (event.context() instanceof Path))
+					changes.add(folder.resolve((Path) event.context()));
+			}
+			key.reset();
+
+			key = fWatchService.poll(SETTLE_TIME, TimeUnit.MILLISECONDS);
+		}
+
+		return changes;
+	}
+
+	private void register(final Path folder) throws IOException {
+		if ((folder != null) && (fRegisteredFolders.add(folder))) {
+			final WatchKey key = folder.register(fWatchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			fFolders.put(key, folder);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		fWatchService.close();
+	}
+}
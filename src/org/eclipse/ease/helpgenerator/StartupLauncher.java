@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Launcher running {@link SourceFrontEnd} in a child JVM that uses a dynamic class data sharing (AppCDS) archive. Most of a single plugin run is spent
+ * loading classes of the compiler, the XML parsers and the doclet. The first run records all loaded classes to an archive, later runs map them from there.
+ * <p>
+ * Archives are named after a hash of the JVM, its options and the class path jars, so rebuilding the doclet jar records a new archive and removes the old one. The
+ * startup time of the recording run is stored as baseline, later runs report their startup saving and add it to the performance report.
+ * </p>
+ *
+ * <pre>
+ * java -cp helpgenerator.jar org.eclipse.ease.helpgenerator.StartupLauncher -cdsFolder .cds [-J&lt;jvm option&gt;] -sourcepath src -root . ...
+ * </pre>
+ */
+public class StartupLauncher {
+
+	/** System property pointing to the startup baseline of the current archive. */
+	static final String PROPERTY_BASELINE = "org.eclipse.ease.helpgenerator.startupBaseline";
+
+	/** System property set when the current run records the archive. */
+	static final String PROPERTY_RECORD = "org.eclipse.ease.helpgenerator.startupRecord";
+
+	private static final String ARCHIVE_PREFIX = "helpgenerator-";
+	private static final String ARCHIVE_EXTENSION = ".jsa";
+	private static final String BASELINE_EXTENSION = ".startup";
+
+	/** JVM options used when none are given. Short runs do not amortize C2 compilation. */
+	private static final List<String> DEFAULT_JVM_OPTIONS = List.of("-XX:TieredStopAtLevel=1");
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		System.exit(run(args));
+	}
+
+	/**
+	 * Run the generator in a child JVM.
+	 *
+	 * @param args
+	 *            launcher options, JVM options prefixed by <i>-J</i> and {@link SourceFrontEnd} options
+	 * @return exit code of the child JVM
+	 */
+	public static int run(final String[] args) throws IOException, InterruptedException {
+		File cdsFolder = new File(System.getProperty("java.io.tmpdir"), "helpgenerator-cds");
+		final List<String> jvmOptions = new ArrayList<>();
+		final List<String> arguments = new ArrayList<>();
+
+		for (int index = 0; index < args.length; index++) {
+			if ("-cdsFolder".equals(args[index]) && (index + 1 < args.length))
+				cdsFolder = new File(args[++index]);
+			else if (args[index].startsWith("-J"))
+				jvmOptions.add(args[index].substring(2));
+			else
+				arguments.add(args[index]);
+		}
+
+		final String classPath = System.getProperty("java.class.path");
+
+		if (jvmOptions.isEmpty())
+			jvmOptions.addAll(DEFAULT_JVM_OPTIONS);
+
+		final List<String> command = new ArrayList<>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+		command.addAll(jvmOptions);
+
+		File archive = null;
+		File recording = null;
+		if (Runtime.version().feature() < 13)
+			System.out.println("WARNING: dynamic class data sharing needs Java 13 or later, running without archive");
+
+		else if (!isArchivable(classPath))
+			System.out.println("WARNING: class path contains folders, running without class data sharing archive");
+
+		else {
+			archive = new File(cdsFolder, ARCHIVE_PREFIX + createKey(classPath, jvmOptions) + ARCHIVE_EXTENSION);
+			final File baseline = new File(cdsFolder, archive.getName() + BASELINE_EXTENSION);
+
+			if (archive.isFile()) {
+				command.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+
+			} else {
+				removeArchives(cdsFolder);
+				cdsFolder.mkdirs();
+
+				// concurrent runs must not map a partially written archive
+				recording = new File(cdsFolder, archive.getName() + "." + ProcessHandle.current().pid() + ".tmp");
+				command.add("-XX:ArchiveClassesAtExit=" + recording.getAbsolutePath());
+				command.add("-D" + PROPERTY_RECORD + "=true");
+			}
+
+			// classes that cannot be archived are reported as warnings
+			command.add("-Xlog:cds*=off");
+
+			command.add("-D" + PROPERTY_BASELINE + "=" + baseline.getAbsolutePath());
+		}
+
+		command.add("-cp");
+		command.add(classPath);
+		command.add(SourceFrontEnd.class.getName());
+		command.addAll(arguments);
+
+		final int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+
+		if ((recording != null) && (recording.isFile())) {
+			try {
+				Files.move(recording.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (final IOException e) {
+				System.out.println("WARNING: cannot store class data sharing archive " + archive);
+				recording.delete();
+			}
+		}
+
+		return exitCode;
+	}
+
+	/**
+	 * Dynamic archives may only be recorded when all class path entries are jars.
+	 */
+	private static boolean isArchivable(final String classPath) {
+		for (final String entry : classPath.split(File.pathSeparator)) {
+			final String[] content = new File(entry).list();
+			if ((content != null) && (content.length > 0))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Create an archive key from the JVM, its options and the class path jars. Archives are only valid for the exact JVM build, heap and GC settings and jar
+	 * files they were recorded with.
+	 */
+	private static String createKey(final String classPath, final List<String> jvmOptions) {
+		final MessageDigest digest = Hashes.createDigest();
+		digest.update((System.getProperty("java.home") + '\n' + System.getProperty("java.vm.version") + '\n' + jvmOptions + '\n')
+				.getBytes(StandardCharsets.UTF_8));
+
+		for (final String entry : classPath.split(File.pathSeparator)) {
+			final File file = new File(entry).getAbsoluteFile();
+			digest.update((file + "\n" + file.length() + "\n" + file.lastModified() + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+
+		return Hashes.toHex(digest.digest(), 8);
+	}
+
+	/**
+	 * Remove archives and baselines of outdated jars.
+	 */
+	private static void removeArchives(final File cdsFolder) {
+		final File[] files = cdsFolder.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				if ((file.getName().startsWith(ARCHIVE_PREFIX)) && (file.getName().endsWith(ARCHIVE_EXTENSION) || file.getName().endsWith(BASELINE_EXTENSION)))
+					file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Add the JVM startup time to the performance report. The startup time spans from JVM start until the generator starts processing, including loading
+	 * compiler classes and parsing sources. When run from the launcher the recording run stores its startup time as baseline and later runs report the time
+	 * saved by the archive.
+	 *
+	 * @param report
+	 *            report to add counters to
+	 * @param silent
+	 *            <code>true</code> to suppress console output
+	 */
+	static void recordStartup(final PerformanceReport report, final boolean silent) {
+		final long startup = ManagementFactory.getRuntimeMXBean().getUptime();
+		report.setCounter("startupMillis", startup);
+
+		final String baselineLocation = System.getProperty(PROPERTY_BASELINE);
+		if (baselineLocation == null)
+			return;
+
+		final Path baselineFile = new File(baselineLocation).toPath();
+		try {
+			if (Boolean.getBoolean(PROPERTY_RECORD)) {
+				Files.write(baselineFile, Long.toString(startup).getBytes(StandardCharsets.UTF_8));
+
+			} else if (Files.isRegularFile(baselineFile)) {
+				final long baseline = Long.parseLong(new String(Files.readAllBytes(baselineFile), StandardCharsets.UTF_8).trim());
+				report.setCounter("startupBaselineMillis", baseline);
+				report.setCounter("startupSavedMillis", baseline - startup);
+
+				if (!silent)
+					System.out.println("Startup took " + startup + " ms, " + (baseline - startup) + " ms saved by class data sharing archive");
+			}
+
+		} catch (final IOException | NumberFormatException e) {
+			System.out.println("WARNING: cannot access startup baseline " + baselineFile);
+		}
+	}
+}
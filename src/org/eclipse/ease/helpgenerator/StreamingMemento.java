@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import org.w3c.dom.DOMException;
+
+/**
+ * Write-only {@link IMemento} encoding elements and attributes directly to a {@link Utf8Buffer}. No document tree is built, so writing allocates one small
+ * object per element only. Output is identical to {@link XMLMemento#save(java.io.Writer)} for the same sequence of calls, except that attributes keep the
+ * order in which they were put.
+ * <p>
+ * Content is streamed, so calls have to follow document order: attributes need to be put before children or text data are added to an element. Creating a
+ * new child completes all previously created children of the same parent. Read methods are not supported.
+ * </p>
+ */
+public class StreamingMemento implements IMemento, AutoCloseable {
+
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+	/** Start tag is open, attributes may be added. */
+	private static final int STATE_START_TAG = 0;
+
+	/** Children or text data were written. */
+	private static final int STATE_CONTENT = 1;
+
+	/** End tag was written. */
+	private static final int STATE_CLOSED = 2;
+
+	/**
+	 * Returns a root memento for writing a document to a buffer. The document is complete once the root memento is closed.
+	 *
+	 * @param type
+	 *            the element node type of the root element
+	 * @param buffer
+	 *            buffer to append the document to
+	 * @return the root memento for writing a document
+	 */
+	public static StreamingMemento createWriteRoot(final String type, final Utf8Buffer buffer) {
+		buffer.append(XML_DECLARATION);
+		return new StreamingMemento(buffer, type, null);
+	}
+
+	private final Utf8Buffer fBuffer;
+	private final String fType;
+	private final String fId;
+
+	private int fState = STATE_START_TAG;
+	private boolean fPreviousWasText = false;
+	private StreamingMemento fOpenChild = null;
+
+	private StreamingMemento(final Utf8Buffer buffer, final String type, final String id) {
+		fBuffer = buffer;
+		fType = type;
+		fId = id;
+
+		fBuffer.append("<").append(type);
+		if (id != null)
+			putString(TAG_ID, id);
+	}
+
+	@Override
+	public IMemento createChild(final String type) throws DOMException {
+		return createChild(type, null);
+	}
+
+	@Override
+	public IMemento createChild(final String type, final String id) throws DOMException {
+		startContent();
+
+		if (!fPreviousWasText)
+			fBuffer.append("\n");
+
+		fPreviousWasText = false;
+		fOpenChild = new StreamingMemento(fBuffer, type, id);
+		return fOpenChild;
+	}
+
+	@Override
+	public void putString(final String key, final String value) throws DOMException {
+		if (fState != STATE_START_TAG)
+			throw new DOMException(DOMException.INVALID_STATE_ERR, "Attribute \"" + key + "\" needs to be put before children of <" + fType + ">");
+
+		fBuffer.append(" ").append(key).append("=\"");
+		appendEscaped(String.valueOf(value));
+		fBuffer.append("\"");
+	}
+
+	@Override
+	public void putInteger(final String key, final int value) throws DOMException {
+		putString(key, String.valueOf(value));
+	}
+
+	@Override
+	public void putFloat(final String key, final float value) throws DOMException {
+		putString(key, String.valueOf(value));
+	}
+
+	@Override
+	public void putBoolean(final String key, final boolean value) throws DOMException {
+		putString(key, value ? "true" : "false");
+	}
+
+	@Override
+	public void putTextData(final String data) throws DOMException {
+		startContent();
+
+		appendEscaped(data);
+		fPreviousWasText = true;
+	}
+
+	/**
+	 * Copy attributes, text data and children of <code>memento</code>. Text data is written before the children.
+	 */
+	@Override
+	public void putMemento(final IMemento memento) throws DOMException {
+		for (final String key : memento.getAttributeKeys())
+			putString(key, memento.getString(key));
+
+		final String textData = memento.getTextData();
+		if (textData != null)
+			putTextData(textData);
+
+		for (final IMemento child : memento.getChildren())
+			createChild(child.getType()).putMemento(child);
+	}
+
+	/**
+	 * Write the end tag of this element and of all open children. Further modifications are not allowed.
+	 */
+	@Override
+	public void close() {
+		if (fState == STATE_CLOSED)
+			return;
+
+		closeChild();
+
+		if (fState == STATE_START_TAG)
+			fBuffer.append("/>");
+
+		else {
+			if (!fPreviousWasText)
+				fBuffer.append("\n");
+
+			fBuffer.append("</").append(fType).append(">");
+		}
+
+		fState = STATE_CLOSED;
+	}
+
+	@Override
+	public String getType() {
+		return fType;
+	}
+
+	@Override
+	public String getID() {
+		return fId;
+	}
+
+	@Override
+	public IMemento getChild(final String type) {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public IMemento[] getChildren() {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public IMemento[] getChildren(final String type) {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public Float getFloat(final String key) {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public Integer getInteger(final String key) {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public String getString(final String key) {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public Boolean getBoolean(final String key) {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public String getTextData() {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	@Override
+	public String[] getAttributeKeys() {
+		throw new UnsupportedOperationException("Memento is write-only");
+	}
+
+	/**
+	 * Complete the start tag and any open child before content gets added.
+	 */
+	private void startContent() {
+		if (fState == STATE_CLOSED)
+			throw new DOMException(DOMException.INVALID_STATE_ERR, "Element <" + fType + "> is already closed");
+
+		closeChild();
+
+		if (fState == STATE_START_TAG) {
+			fBuffer.append(">");
+			fState = STATE_CONTENT;
+		}
+	}
+
+	private void closeChild() {
+		if (fOpenChild != null) {
+			fOpenChild.close();
+			fOpenChild = null;
+		}
+	}
+
+	/**
+	 * Append text using the character references of {@link XMLMemento}. Characters not allowed in XML are dropped.
+	 */
+	private void appendEscaped(final String text) {
+		int start = 0;
+		for (int index = 0; index < text.length(); index++) {
+			final char c = text.charAt(index);
+			final String replacement = getReplacement(c);
+			if ((replacement != null) || (c < 0x20)) {
+				fBuffer.append(text, start, index);
+				if (replacement != null)
+					fBuffer.append(replacement);
+
+				start = index + 1;
+			}
+		}
+
+		fBuffer.append(text, start, text.length());
+	}
+
+	private static String getReplacement(final char c) {
+		switch (c) {
+		case '<':
+			return "&lt;";
+		case '>':
+			return "&gt;";
+		case '"':
+			return "&quot;";
+		case '\'':
+			return "&apos;";
+		case '&':
+			return "&amp;";
+		case '\r':
+			return "&#x0D;";
+		case '\n':
+			return "&#x0A;";
+		case '\t':
+			return "&#x09;";
+		default:
+			return null;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Builds category and module TOC files. Modules are grouped by category in a single pass over the descriptors, file names and links are computed once per
+ * category and every TOC file is serialized exactly once with a {@link StreamingMemento}.
+ */
+class TocBuilder {
+
+	private static final String CATEGORY_MARKER = ".category.";
+	private static final String MODULES_ANCHOR = "modules_anchor";
+
+	/** A single TOC file: either a category (topic with anchor) or a module list linked to a category anchor. */
+	private static final class Toc {
+		private final String fLabel;
+		private final String fLinkTo;
+		private final boolean fCategory;
+		private final List<ModuleDescriptor> fModules = new ArrayList<>();
+
+		Toc(final String label, final String linkTo, final boolean category) {
+			fLabel = label;
+			fLinkTo = linkTo;
+			fCategory = category;
+		}
+	}
+
+	/** TOC files sorted by file name. */
+	private final Map<String, Toc> fTocs = new TreeMap<>();
+
+	/** Precomputed links by category id. A <code>null</code> id refers to the root reference TOC. */
+	private final Map<String, String> fLinks = new HashMap<>();
+
+	private final boolean fHasCategories;
+
+	/**
+	 * Constructor. Groups modules by category.
+	 *
+	 * @param categories
+	 *            category definitions
+	 * @param modules
+	 *            module definitions
+	 */
+	TocBuilder(final Collection<CategoryDescriptor> categories, final Collection<ModuleDescriptor> modules) {
+		fHasCategories = !categories.isEmpty();
+
+		for (final CategoryDescriptor category : categories)
+			fTocs.put(createCategoryFileName(category.getId()), new Toc(category.getName(), getLink(category.getParent()), true));
+
+		// different category ids may map to the same file, modules are appended to any TOC already using that file
+		final List<ModuleDescriptor> sortedModules = new ArrayList<>(modules);
+		sortedModules.sort(Comparator.comparing(ModuleDescriptor::getId));
+		for (final ModuleDescriptor module : sortedModules) {
+			final String fileName = createCategoryFileName(module.getCategory()).replace("category_", "modules_");
+
+			Toc toc = fTocs.get(fileName);
+			if (toc == null) {
+				toc = new Toc("Modules", getLink(module.getCategory()), false);
+				fTocs.put(fileName, toc);
+			}
+
+			toc.fModules.add(module);
+		}
+	}
+
+	/**
+	 * Check whether category definitions are available.
+	 *
+	 * @return <code>true</code> when at least one category is defined
+	 */
+	boolean hasCategories() {
+		return fHasCategories;
+	}
+
+	/**
+	 * Write all TOC files.
+	 *
+	 * @param output
+	 *            target for generated files
+	 * @return names of written TOC files
+	 * @throws IOException
+	 *             on write errors
+	 */
+	Set<String> write(final IHelpOutput output) throws IOException {
+		final Utf8Buffer content = new Utf8Buffer();
+
+		for (final Entry<String, Toc> entry : fTocs.entrySet()) {
+			content.reset();
+			try (StreamingMemento root = StreamingMemento.createWriteRoot("toc", content)) {
+				write(root, entry.getValue());
+			}
+
+			output.write(entry.getKey(), content);
+		}
+
+		return fTocs.keySet();
+	}
+
+	/**
+	 * Populate a TOC memento. Attributes are put in alphabetical order to match the layout of {@link XMLMemento}.
+	 */
+	private static void write(final IMemento root, final Toc toc) {
+		root.putString("label", toc.fLabel);
+		root.putString("link_to", toc.fLinkTo);
+
+		if (toc.fCategory) {
+			final IMemento topic = root.createChild("topic");
+			topic.putString("label", toc.fLabel);
+			topic.putString("sort", "true");
+			topic.createChild("anchor").putString("id", MODULES_ANCHOR);
+		}
+
+		for (final ModuleDescriptor module : toc.fModules) {
+			final IMemento topic = root.createChild("topic");
+			topic.putString("href", "help/" + ModuleDoclet.createHTMLFileName(module.getId()));
+			topic.putString("label", module.getName());
+		}
+	}
+
+	private String getLink(final String categoryId) {
+		String link = fLinks.get(categoryId);
+		if (link == null) {
+			link = createCategoryLink(categoryId);
+			fLinks.put(categoryId, link);
+		}
+
+		return link;
+	}
+
+	private static String extractCategoryName(final String categoryId) {
+		if (categoryId != null) {
+			final int index = categoryId.indexOf(CATEGORY_MARKER);
+			if (index != -1)
+				return categoryId.substring(index + CATEGORY_MARKER.length());
+		}
+
+		return null;
+	}
+
+	private static String createCategoryLink(final String categoryId) {
+		String pluginID = "org.eclipse.ease.help";
+		if (categoryId != null) {
+			final int index = categoryId.indexOf(CATEGORY_MARKER);
+			if (index != -1)
+				pluginID = categoryId.substring(0, index);
+		}
+
+		return "../" + pluginID + "/help/" + createCategoryFileName(categoryId) + "#" + MODULES_ANCHOR;
+	}
+
+	static String createCategoryFileName(final String categoryId) {
+		final String category = extractCategoryName(categoryId);
+		return (category != null) ? "category_" + category + ".xml" : "reference.xml";
+	}
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.helpgenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer holding UTF-8 encoded content. Pre-encoded fragments are copied as is, character data is encoded directly into the buffer without
+ * intermediate strings. Line delimiters of character data are normalized to <code>\n</code>. Buffers are meant to be reset and reused for subsequent
+ * pages.
+ */
+public class Utf8Buffer {
+
+	private byte[] fData;
+	private int fLength = 0;
+
+	public Utf8Buffer() {
+		this(16 * 1024);
+	}
+
+	public Utf8Buffer(final int capacity) {
+		fData = new byte[Math.max(16, capacity)];
+	}
+
+	/**
+	 * Encode a string to UTF-8. Used to prepare static fragments once.
+	 *
+	 * @param text
+	 *            text to encode
+	 * @return UTF-8 encoded bytes
+	 */
+	public static byte[] encode(final String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Append a pre-encoded fragment.
+	 *
+	 * @param fragment
+	 *            UTF-8 encoded data
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(final byte[] fragment) {
+		return append(fragment, 0, fragment.length);
+	}
+
+	/**
+	 * Append a range of pre-encoded data.
+	 *
+	 * @param data
+	 *            UTF-8 encoded data
+	 * @param start
+	 *            index of the first byte to append
+	 * @param end
+	 *            index after the last byte to append
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(final byte[] data, final int start, final int end) {
+		ensureCapacity(fLength + end - start);
+		System.arraycopy(data, start, fData, fLength, end - start);
+		fLength += end - start;
+
+		return this;
+	}
+
+	/**
+	 * Encode and append character data. <code>null</code> is appended as "null" like {@link StringBuilder} does.
+	 *
+	 * @param text
+	 *            text to append
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(final Object text) {
+		final CharSequence sequence = (text instanceof CharSequence) ? (CharSequence) text : String.valueOf(text);
+		return append(sequence, 0, sequence.length());
+	}
+
+	/**
+	 * Encode and append a range of character data.
+	 *
+	 * @param sequence
+	 *            text to append from
+	 * @param start
+	 *            index of the first character to append
+	 * @param end
+	 *            index after the last character to append
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(final CharSequence sequence, final int start, final int end) {
+		// worst case: 3 bytes per UTF-16 char
+		ensureCapacity(fLength + ((end - start) * 3));
+
+		for (int index = start; index < end; index++) {
+			final char c = sequence.charAt(index);
+
+			if (c < 0x80) {
+				if (c == '\r') {
+					// normalize line delimiters
+					if (((index + 1) < end) && (sequence.charAt(index + 1) == '\n'))
+						continue;
+
+					fData[fLength++] = '\n';
+				} else
+					fData[fLength++] = (byte) c;
+
+			} else if (c < 0x800) {
+				fData[fLength++] = (byte) (0xC0 | (c >> 6));
+				fData[fLength++] = (byte) (0x80 | (c & 0x3F));
+
+			} else if (Character.isHighSurrogate(c) && ((index + 1) < end) && Character.isLowSurrogate(sequence.charAt(index + 1))) {
+				final int codePoint = Character.toCodePoint(c, sequence.charAt(++index));
+				fData[fLength++] = (byte) (0xF0 | (codePoint >> 18));
+				fData[fLength++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				fData[fLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				fData[fLength++] = (byte) (0x80 | (codePoint & 0x3F));
+
+			} else if (Character.isSurrogate(c)) {
+				// unpaired surrogate, use replacement character like String.getBytes() does
+				fData[fLength++] = '?';
+
+			} else {
+				fData[fLength++] = (byte) (0xE0 | (c >> 12));
+				fData[fLength++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				fData[fLength++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+
+		return this;
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity > fData.length)
+			fData = Arrays.copyOf(fData, Math.max(capacity, fData.length * 2));
+	}
+
+	/**
+	 * Clear content, keeping the allocated memory for reuse.
+	 */
+	public void reset() {
+		fLength = 0;
+	}
+
+	public int length() {
+		return fLength;
+	}
+
+	/**
+	 * Direct access to the internal array. Only the first {@link #length()} bytes are valid.
+	 *
+	 * @return internal data array
+	 */
+	public byte[] getData() {
+		return fData;
+	}
+
+	/**
+	 * Wrap the content for channel based output. The buffer must not be modified while the returned buffer is in use.
+	 *
+	 * @return byte buffer on the valid content
+	 */
+	public ByteBuffer asByteBuffer() {
+		return ByteBuffer.wrap(fData, 0, fLength);
+	}
+
+	public InputStream asInputStream() {
+		return new ByteArrayInputStream(fData, 0, fLength);
+	}
+
+	public void writeTo(final OutputStream output) throws IOException {
+		output.write(fData, 0, fLength);
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf(fData, fLength);
+	}
+
+	@Override
+	public String toString() {
+		return new String(fData, 0, fLength, StandardCharsets.UTF_8);
+	}
+}
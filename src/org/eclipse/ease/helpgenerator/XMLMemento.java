@@ -652,6 +652,14 @@ public final class XMLMemento implements IMemento {
 			println(XML_VERSION);
 		}
 
+		/**
+		 * Always use unix line delimiters to get identical output on all platforms.
+		 */
+		@Override
+		public void println() {
+			write('\n');
+		}
+
 		/**
 		 * Prints the given element.
 		 * 